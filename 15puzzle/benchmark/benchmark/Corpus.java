@@ -0,0 +1,130 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import puzzle.PackedPuzzle;
+import puzzle.Puzzle;
+import puzzle.PuzzleService;
+import solver.batch.BatchInput;
+
+/**
+ *
+ * Fixed set of puzzles for benchmarks, same on every run
+ *
+ * Names: "korf100" - Korf's 100 instances (see korf100.txt), every one has known optimal solution length;
+ *      "walk-N" - 50 puzzles made by N random moves from solved puzzle, seed 15
+ *
+ * @author Marius
+ *
+ */
+public class Corpus {
+
+    public static final String KORF_100 = "korf100";
+    public static final String RANDOM_WALK_PREFIX = "walk-";
+
+    private static final int RANDOM_WALKS = 50;
+    private static final long RANDOM_WALK_SEED = 15L;
+    private static final Pattern OPTIMAL_MOVES = Pattern.compile("#\\s*\\d+:\\s*(\\d+) moves");
+
+    private final String name;
+    private final List<Puzzle> puzzles;
+    private final int[] optimalMoves; // -1 if unknown
+
+    private Corpus(String name, List<Puzzle> puzzles, int[] optimalMoves) {
+        this.name = name;
+        this.puzzles = Collections.unmodifiableList(puzzles);
+        this.optimalMoves = optimalMoves;
+    }
+
+    public static Corpus load(String name) {
+        if (KORF_100.equals(name)) {
+            return korf100();
+        }
+        if (name.startsWith(RANDOM_WALK_PREFIX)) {
+            int walkLength = Integer.parseInt(name.substring(RANDOM_WALK_PREFIX.length()));
+            List<Puzzle> puzzles = randomWalks(new PuzzleService(), RANDOM_WALKS, walkLength, RANDOM_WALK_SEED);
+            int[] optimalMoves = new int[puzzles.size()];
+            Arrays.fill(optimalMoves, -1);
+            return new Corpus(name, puzzles, optimalMoves);
+        }
+        throw new IllegalArgumentException("Unknown corpus: " + name);
+    }
+
+    /**
+     * @return Korf's 100 instances, converted to goal of this solver
+     */
+    public static Corpus korf100() {
+        InputStream stream = Corpus.class.getResourceAsStream("korf100.txt");
+        if (stream == null) {
+            throw new IllegalStateException("korf100.txt is missing from class path");
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.US_ASCII))) {
+            List<String> lines = new ArrayList<String>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+            List<Integer> moves = new ArrayList<Integer>();
+            for (String comment : lines) {
+                Matcher matcher = OPTIMAL_MOVES.matcher(comment.trim());
+                if (matcher.matches()) {
+                    moves.add(Integer.parseInt(matcher.group(1)));
+                }
+            }
+            List<Puzzle> puzzles = new ArrayList<Puzzle>();
+            new BatchInput(new BufferedReader(new StringReader(String.join("\n", lines)))).forEachRemaining(puzzles::add);
+            if (moves.size() != puzzles.size()) {
+                throw new IllegalStateException("korf100.txt has " + puzzles.size() + " puzzles, but " + moves.size() + " lengths");
+            }
+            return new Corpus(KORF_100, puzzles, moves.stream().mapToInt(Integer::intValue).toArray());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * @return puzzles made by applying given amount of random moves to solved puzzle
+     */
+    public static List<Puzzle> randomWalks(PuzzleService puzzleService, int amount, int walkLength, long seed) {
+        Random random = new Random(seed);
+        List<Puzzle> puzzles = new ArrayList<Puzzle>();
+        for (int i = 0; i < amount; i++) {
+            long cells = PackedPuzzle.SOLVED;
+            for (int j = 0; j < walkLength; j++) {
+                long[] adjacent = puzzleService.getAdjacentStates(cells);
+                cells = adjacent[random.nextInt(adjacent.length)];
+            }
+            puzzles.add(new Puzzle(cells));
+        }
+        return puzzles;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Puzzle> getPuzzles() {
+        return puzzles;
+    }
+
+    /**
+     * @return optimal solution length of puzzle with given index, or -1 if it's unknown
+     */
+    public int getOptimalMoves(int index) {
+        return optimalMoves[index];
+    }
+
+}
@@ -0,0 +1,132 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongToIntFunction;
+
+import puzzle.PackedPuzzle;
+import puzzle.Puzzle;
+import puzzle.PuzzleService;
+import puzzle.ZobristHash;
+import solver.NodeTable;
+
+/**
+ *
+ * Compares quality of puzzle hashes on sets of distinct states: the original hash of cell values
+ *      ((hash + cell) * index over all cells), MurmurHash3 finalizer of packed state ({@link PackedPuzzle#hash})
+ *      and Zobrist key ({@link ZobristHash})
+ *
+ * For every set prints 32 bit collisions and probe lengths of linear probing table with load factor
+ *      of {@link NodeTable}, which is how search nodes are looked up. Sets are ends of random walks (see {@link Corpus})
+ *      and all states up to given distance from solved one, which is close to closed set of a search.
+ *
+ * Usage: HashQualityBenchmark [random walks] [walk length] [distance] [seed]
+ *
+ * @author Marius
+ *
+ */
+public class HashQualityBenchmark {
+
+    public static void main(String[] args) {
+        int walks = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int walkLength = args.length > 1 ? Integer.parseInt(args[1]) : 80;
+        int distance = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 15L;
+
+        PuzzleService puzzleService = new PuzzleService();
+        Set<Long> walkEnds = new LinkedHashSet<Long>();
+        for (Puzzle puzzle : Corpus.randomWalks(puzzleService, walks, walkLength, seed)) {
+            walkEnds.add(puzzle.getCells());
+        }
+        report(String.format("%,d random walks of %d moves", walkEnds.size(), walkLength), toArray(walkEnds));
+        report(String.format("all states up to %d moves", distance), statesWithin(puzzleService, distance));
+    }
+
+    private static void report(String name, long[] states) {
+        System.out.printf("%s (%,d distinct states)\n", name, states.length);
+        System.out.printf("%-10s %12s %14s %12s\n", "hash", "collisions", "average probes", "max probes");
+        report("original", states, HashQualityBenchmark::originalHash);
+        report("murmur", states, PackedPuzzle::hash);
+        report("zobrist", states, state -> ZobristHash.hash(ZobristHash.of(state)));
+        System.out.println();
+    }
+
+    private static void report(String name, long[] states, LongToIntFunction hash) {
+        int[] hashes = new int[states.length];
+        for (int i = 0; i < states.length; i++) {
+            hashes[i] = hash.applyAsInt(states[i]);
+        }
+        int[] sorted = hashes.clone();
+        Arrays.sort(sorted);
+        int collisions = 0;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] == sorted[i - 1]) {
+                collisions++;
+            }
+        }
+        int capacity = Integer.highestOneBit((int) Math.ceil(states.length / NodeTable.DEFAULT_LOAD_FACTOR) - 1) << 1;
+        int mask = capacity - 1;
+        boolean[] used = new boolean[capacity];
+        long probes = 0;
+        int maxProbes = 0;
+        for (int h : hashes) {
+            int slot = h & mask;
+            int length = 1;
+            while (used[slot]) {
+                slot = (slot + 1) & mask;
+                length++;
+            }
+            used[slot] = true;
+            probes += length; // successful lookup of this state takes the same probes
+            maxProbes = Math.max(maxProbes, length);
+        }
+        System.out.printf("%-10s %,12d %14.2f %,12d\n", name, collisions, (double) probes / states.length, maxProbes);
+    }
+
+    /**
+     * Hash of original Puzzle.hashCode, over cells in row order
+     */
+    private static int originalHash(long state) {
+        int hash = 0;
+        for (int i = 0; i < PackedPuzzle.CELLS; i++) {
+            hash = (hash + PackedPuzzle.getCell(state, i)) * (i + 1);
+        }
+        return hash;
+    }
+
+    private static long[] statesWithin(PuzzleService puzzleService, int distance) {
+        Set<Long> visited = new HashSet<Long>();
+        List<Long> layer = new ArrayList<Long>();
+        visited.add(PackedPuzzle.SOLVED);
+        layer.add(PackedPuzzle.SOLVED);
+        List<Long> states = new ArrayList<Long>(layer);
+        for (int depth = 0; depth < distance; depth++) {
+            List<Long> next = new ArrayList<Long>();
+            for (long state : layer) {
+                for (long adjacent : puzzleService.getAdjacentStates(state)) {
+                    if (visited.add(adjacent)) {
+                        next.add(adjacent);
+                    }
+                }
+            }
+            states.addAll(next);
+            layer = next;
+        }
+        return toArray(states);
+    }
+
+    private static long[] toArray(Iterable<Long> states) {
+        List<Long> list = new ArrayList<Long>();
+        states.forEach(list::add);
+        long[] array = new long[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+}
@@ -0,0 +1,106 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import puzzle.BatchCommand;
+import puzzle.PackedPuzzle;
+import puzzle.Puzzle;
+import puzzle.PuzzleService;
+import solver.heuristics.Heuristic;
+
+/**
+ *
+ * Measures full heuristic evaluation (one state at a time and all states at once) and incremental update
+ *      after one move, which solvers use for every puzzle
+ *
+ * Score is evaluations per microsecond over {@value #STATES} puzzles of random walks (see {@link Corpus}).
+ *
+ * @author Marius
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicBenchmark {
+
+    static final int STATES = 1024;
+
+    @Param({ "wrong", "manhattan", "linear", "walking", "pdb" })
+    public String heuristicName;
+
+    private Heuristic heuristic;
+    private long[] states;
+    // one move of every puzzle: moved cell value, its index and empty cell index
+    private int[] movedTiles;
+    private int[] froms;
+    private int[] tos;
+    private int[] values = new int[STATES];
+
+    @Setup
+    public void setUp() throws IOException {
+        heuristic = BatchCommand.createHeuristic(heuristicName);
+        PuzzleService puzzleService = new PuzzleService();
+        List<Puzzle> puzzles = Corpus.randomWalks(puzzleService, STATES, 80, 15L);
+        states = new long[STATES];
+        movedTiles = new int[STATES];
+        froms = new int[STATES];
+        tos = new int[STATES];
+        for (int i = 0; i < STATES; i++) {
+            long cells = puzzles.get(i).getCells();
+            long moveAfter = puzzleService.getAdjacentStates(cells)[0];
+            states[i] = cells;
+            tos[i] = PackedPuzzle.emptyIndex(cells);
+            froms[i] = PackedPuzzle.emptyIndex(moveAfter);
+            movedTiles[i] = PackedPuzzle.getCell(cells, froms[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STATES)
+    public int heuristicValue() {
+        int sum = 0;
+        for (long state : states) {
+            sum += heuristic.heuristicValue(state);
+        }
+        return sum;
+    }
+
+    /**
+     * All states evaluated by one call, see {@link Heuristic#heuristicValues}
+     */
+    @Benchmark
+    @OperationsPerInvocation(STATES)
+    public int[] heuristicValues() {
+        heuristic.heuristicValues(states, values);
+        return values;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STATES)
+    public int delta() {
+        int sum = 0;
+        for (int i = 0; i < STATES; i++) {
+            sum += heuristic.delta(states[i], movedTiles[i], froms[i], tos[i]);
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,77 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import puzzle.Puzzle;
+import puzzle.PuzzleService;
+import solver.AStarSolver;
+import solver.OpenListStrategy;
+import solver.heuristics.ManhattanDistanceHeuristic;
+
+/**
+ *
+ * Compares time of {@link AStarSolver} with every {@link OpenListStrategy} to solve whole corpus (see {@link Corpus})
+ *
+ * Every solution is checked to be optimal where its length is known, same as in {@link SolveBenchmark}.
+ *
+ * @author Marius
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class OpenListBenchmark {
+
+    @Param({ "walk-40", "walk-60" })
+    public String corpus;
+
+    @Param // all strategies
+    public OpenListStrategy strategy;
+
+    private Corpus puzzles;
+    private AStarSolver solver;
+
+    @Setup
+    public void setUp() {
+        puzzles = Corpus.load(corpus);
+        solver = new AStarSolver(new PuzzleService(), new ManhattanDistanceHeuristic());
+        solver.setOpenListStrategy(strategy);
+        solver.setVerbose(false);
+    }
+
+    @Benchmark
+    public int solveCorpus() {
+        List<Puzzle> corpusPuzzles = puzzles.getPuzzles();
+        int moves = 0;
+        for (int i = 0; i < corpusPuzzles.size(); i++) {
+            List<Puzzle> solution = solver.solve(corpusPuzzles.get(i));
+            if (solution == null) {
+                throw new IllegalStateException(puzzles.getName() + " puzzle " + i + " wasn't solved");
+            }
+            int optimalMoves = puzzles.getOptimalMoves(i);
+            if (optimalMoves >= 0 && solution.size() - 1 != optimalMoves) {
+                throw new IllegalStateException(String.format("%s puzzle %d solved in %d moves, optimal is %d",
+                        puzzles.getName(), i, solution.size() - 1, optimalMoves));
+            }
+            moves += solution.size() - 1;
+        }
+        return moves;
+    }
+
+}
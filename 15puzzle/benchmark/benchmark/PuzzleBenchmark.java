@@ -0,0 +1,165 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import puzzle.BoardSize;
+import puzzle.PackedPuzzle;
+import puzzle.Puzzle;
+import puzzle.PuzzleService;
+import puzzle.ZobristHash;
+
+/**
+ *
+ * Measures puzzle operations used by solvers and by hash based collections: making adjacent puzzles
+ *      (new objects or written to reused buffer), hashCode and equals, hashes of packed states
+ *      (see {@link HashQualityBenchmark} for their quality)
+ *
+ * Score is operations per microsecond over {@value #PUZZLES} puzzles of random walks (see {@link Corpus}).
+ *
+ * @author Marius
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PuzzleBenchmark {
+
+    static final int PUZZLES = 1024;
+
+    private PuzzleService puzzleService;
+    private Puzzle[] puzzles;
+    private Puzzle[] copies; // equal to puzzles, but different objects
+    private long[] states;
+    private long[] keys; // Zobrist keys of states
+    private int[] tiles; // value, empty cell index and cell index of a move from every state
+    private int[] emptyIndexes;
+    private int[] tileIndexes;
+    private long[] adjacentStates = new long[4];
+
+    @Setup
+    public void setUp() {
+        puzzleService = new PuzzleService();
+        List<Puzzle> corpus = Corpus.randomWalks(puzzleService, PUZZLES, 80, 15L);
+        puzzles = new Puzzle[PUZZLES];
+        copies = new Puzzle[PUZZLES];
+        states = new long[PUZZLES];
+        keys = new long[PUZZLES];
+        tiles = new int[PUZZLES];
+        emptyIndexes = new int[PUZZLES];
+        tileIndexes = new int[PUZZLES];
+        for (int i = 0; i < PUZZLES; i++) {
+            puzzles[i] = corpus.get(i);
+            copies[i] = new Puzzle(corpus.get(i));
+            states[i] = corpus.get(i).getCells();
+            keys[i] = ZobristHash.of(states[i]);
+            emptyIndexes[i] = PackedPuzzle.emptyIndex(states[i]);
+            tileIndexes[i] = BoardSize.FIFTEEN.getNeighbours(emptyIndexes[i])[0];
+            tiles[i] = PackedPuzzle.getCell(states[i], tileIndexes[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PUZZLES)
+    public void getAdjacentPuzzles(Blackhole blackhole) {
+        for (Puzzle puzzle : puzzles) {
+            blackhole.consume(puzzleService.getAdjacentPuzzles(puzzle));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PUZZLES)
+    public void getAdjacentStates(Blackhole blackhole) {
+        for (long state : states) {
+            blackhole.consume(puzzleService.getAdjacentStates(state));
+        }
+    }
+
+    /**
+     * Adjacent states written to reused buffer, move to {@link #tileIndexes} is skipped as if it was the parent
+     */
+    @Benchmark
+    @OperationsPerInvocation(PUZZLES)
+    public long getAdjacentStatesToBuffer() {
+        long sum = 0;
+        for (int i = 0; i < PUZZLES; i++) {
+            int count = puzzleService.getAdjacentStates(states[i], tileIndexes[i], adjacentStates);
+            for (int j = 0; j < count; j++) {
+                sum += adjacentStates[j];
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PUZZLES)
+    public int hashCodes() {
+        int sum = 0;
+        for (Puzzle puzzle : puzzles) {
+            sum += puzzle.hashCode();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PUZZLES)
+    public int murmurHashes() {
+        int sum = 0;
+        for (long state : states) {
+            sum += PackedPuzzle.hash(state);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PUZZLES)
+    public long zobristKeys() {
+        long sum = 0;
+        for (long state : states) {
+            sum += ZobristHash.of(state);
+        }
+        return sum;
+    }
+
+    /**
+     * Key of adjacent state from key of current one
+     */
+    @Benchmark
+    @OperationsPerInvocation(PUZZLES)
+    public long zobristMoves() {
+        long sum = 0;
+        for (int i = 0; i < PUZZLES; i++) {
+            sum += ZobristHash.move(keys[i], tiles[i], emptyIndexes[i], tileIndexes[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PUZZLES)
+    public int equalPuzzles() {
+        int equal = 0;
+        for (int i = 0; i < PUZZLES; i++) {
+            if (puzzles[i].equals(copies[i])) {
+                equal++;
+            }
+        }
+        return equal;
+    }
+
+}
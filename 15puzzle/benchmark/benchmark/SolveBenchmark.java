@@ -0,0 +1,103 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import puzzle.BatchCommand;
+import puzzle.Puzzle;
+import puzzle.PuzzleService;
+import solver.Solver;
+
+/**
+ *
+ * Measures complete solves of every puzzle in a corpus (see {@link Corpus})
+ *
+ * Throughput mode reports solved corpora per second and, as secondary results, considered moves (expanded nodes)
+ *      per second and puzzles per second. Average time mode reports time to solve whole corpus.
+ * Every solution is checked to be optimal where its length is known, so wrong result fails the benchmark.
+ *
+ * Korf's 100 instances need strong heuristic: -p corpus=korf100 -p algorithm=idastar -p heuristicName=pdb
+ *
+ * @author Marius
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SolveBenchmark {
+
+    @Param({ "walk-40", "walk-60", "walk-80" })
+    public String corpus;
+
+    @Param({ "astar", "idastar", "bidirectional" })
+    public String algorithm;
+
+    @Param({ "manhattan", "linear" })
+    public String heuristicName;
+
+    private Corpus puzzles;
+    private Solver solver;
+
+    /**
+     * Counters of one iteration, reported as rates
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long consideredMoves;
+        public long puzzles;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            consideredMoves = 0;
+            puzzles = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        puzzles = Corpus.load(corpus);
+        solver = BatchCommand.createSolver(algorithm, new PuzzleService(), BatchCommand.createHeuristic(heuristicName));
+        solver.setVerbose(false);
+    }
+
+    @Benchmark
+    public int solveCorpus(Counters counters) {
+        List<Puzzle> corpusPuzzles = puzzles.getPuzzles();
+        int moves = 0;
+        for (int i = 0; i < corpusPuzzles.size(); i++) {
+            List<Puzzle> solution = solver.solve(corpusPuzzles.get(i));
+            if (solution == null) {
+                throw new IllegalStateException(puzzles.getName() + " puzzle " + i + " wasn't solved");
+            }
+            int optimalMoves = puzzles.getOptimalMoves(i);
+            if (optimalMoves >= 0 && solution.size() - 1 != optimalMoves) {
+                throw new IllegalStateException(String.format("%s puzzle %d solved in %d moves, optimal is %d",
+                        puzzles.getName(), i, solution.size() - 1, optimalMoves));
+            }
+            moves += solution.size() - 1;
+            counters.consideredMoves += solver.getStats().getExpandedNodes();
+            counters.puzzles++;
+        }
+        return moves;
+    }
+
+}
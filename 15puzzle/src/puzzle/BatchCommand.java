@@ -0,0 +1,311 @@
+package puzzle;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import solver.AStarSolver;
+import solver.AnytimeAStarSolver;
+import solver.BidirectionalSolver;
+import solver.CachingSolver;
+import solver.IDAStarSolver;
+import solver.MultiSizeSolver;
+import solver.ParallelAStarSolver;
+import solver.SearchBudget;
+import solver.SolutionCache;
+import solver.Solver;
+import solver.batch.BatchInput;
+import solver.batch.BatchResult;
+import solver.batch.BatchSolver;
+import solver.batch.BinaryBatchInput;
+import solver.batch.BinaryBatchOutput;
+import solver.batch.BinaryResultOutput;
+import solver.heuristics.Heuristic;
+import solver.heuristics.LinearConflictHeuristic;
+import solver.heuristics.ManhattanDistanceHeuristic;
+import solver.heuristics.PatternDatabaseHeuristic;
+import solver.heuristics.PerimeterDatabase;
+import solver.heuristics.PerimeterHeuristic;
+import solver.heuristics.WalkingDistanceHeuristic;
+import solver.heuristics.WrongCellsHeuristic;
+
+/**
+ * 
+ * Command line batch mode: solves puzzles from file or standard input on all processor cores
+ *      and prints one result line per puzzle to standard output
+ * 
+ * Input file is either text (see {@link BatchInput}) or binary (see {@link BinaryBatchInput}), which is recognized
+ *      by its header. --convert writes text input to binary file without solving. --binary-output writes results
+ *      to binary file (see {@link BinaryResultOutput}) instead of standard output, all puzzles must be of one size
+ *      (size of the first puzzle, if input is text, lines of other sizes fail).
+ * 
+ * Algorithm and heuristic options apply to 15-puzzles, 8-puzzles and 24-puzzles are solved by solvers of their size
+ *      (see {@link MultiSizeSolver})
+ * 
+ * Perimeter database (--perimeter) holds exact distances of all states up to given depth from solved puzzle,
+ *      it's generated to perimeter-DEPTH.bin on first use and lifts 15-puzzle heuristic (see {@link PerimeterHeuristic}).
+ * 
+ * Solution cache (--cache) is shared by all threads, with --cache-file it's loaded before solving and saved after.
+ * 
+ * Result line (tab separated): puzzle index, amount of moves (-1 if unsolvable, -2 if failed,
+ *      -3 if search budget ran out or -4 if timeout passed before any solution was found),
+ *      solving time in milliseconds, values of moved cells in solution order
+ * 
+ * @author Marius
+ *
+ */
+public class BatchCommand {
+
+    public static final String USAGE = "Usage: --batch <file|-> [--threads N] [--in-flight N] [--completion-order]"
+            + " [--algorithm astar|idastar|parallel|bidirectional|anytime] [--heuristic wrong|manhattan|linear|walking|pdb]"
+            + " [--perimeter DEPTH] [--max-nodes N] [--max-memory MB] [--timeout MS] [--cache PUZZLES] [--cache-file FILE]"
+            + " [--binary-output FILE] [--convert FILE]";
+
+    private static final int DEFAULT_CACHE_CAPACITY = 1 << 20;
+
+    private String input;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int maxInFlight = -1;
+    private boolean inputOrder = true;
+    private String algorithm = "astar";
+    private String heuristicName = "manhattan";
+    private int perimeterDepth = -1;
+    private long maxNodes = Long.MAX_VALUE;
+    private long maxMemory = Long.MAX_VALUE;
+    private long timeoutMillis = -1;
+    private int cacheCapacity = -1;
+    private String cacheFile;
+    private String binaryOutput;
+    private String convertFile;
+
+    /**
+     * @param args - command line arguments, starting with --batch
+     */
+    public static void run(String[] args) throws IOException, InterruptedException {
+        BatchCommand command = new BatchCommand();
+        if (!command.parse(args)) {
+            System.out.println(USAGE);
+            return;
+        }
+        if (command.convertFile != null) {
+            command.convert();
+        } else {
+            command.run();
+        }
+    }
+
+    private boolean parse(String[] args) {
+        if (args.length < 2 || !"--batch".equals(args[0])) {
+            return false;
+        }
+        input = args[1];
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--in-flight":
+                    maxInFlight = Integer.parseInt(args[++i]);
+                    break;
+                case "--completion-order":
+                    inputOrder = false;
+                    break;
+                case "--algorithm":
+                    algorithm = args[++i];
+                    break;
+                case "--heuristic":
+                    heuristicName = args[++i];
+                    break;
+                case "--perimeter":
+                    perimeterDepth = Integer.parseInt(args[++i]);
+                    break;
+                case "--max-nodes":
+                    maxNodes = Long.parseLong(args[++i]);
+                    break;
+                case "--max-memory":
+                    maxMemory = Long.parseLong(args[++i]) << 20;
+                    break;
+                case "--timeout":
+                    timeoutMillis = Long.parseLong(args[++i]);
+                    break;
+                case "--cache":
+                    cacheCapacity = Integer.parseInt(args[++i]);
+                    break;
+                case "--cache-file":
+                    cacheFile = args[++i];
+                    break;
+                case "--binary-output":
+                    binaryOutput = args[++i];
+                    break;
+                case "--convert":
+                    convertFile = args[++i];
+                    break;
+                default:
+                    return false;
+            }
+        }
+        if (maxInFlight < 0) {
+            maxInFlight = threads * 4;
+        }
+        if (cacheFile != null && cacheCapacity < 0) {
+            cacheCapacity = DEFAULT_CACHE_CAPACITY;
+        }
+        return true;
+    }
+
+    private void run() throws IOException, InterruptedException {
+        Heuristic heuristic = perimeterDepth < 0 ? createHeuristic(heuristicName) // heuristics are stateless, so all threads share one
+                : withPerimeter(createHeuristic(heuristicName), perimeterDepth);
+        PuzzleService puzzleService = new PuzzleService();
+        SolutionCache cache = cacheCapacity < 0 ? null
+                : cacheFile == null ? new SolutionCache(cacheCapacity) : SolutionCache.loadOrCreate(Paths.get(cacheFile), cacheCapacity);
+        Supplier<Solver> solverFactory = () -> {
+            Solver solver = new MultiSizeSolver(puzzleService, createSolver(algorithm, puzzleService, heuristic));
+            if (cache != null) {
+                solver = new CachingSolver(solver, cache);
+            }
+            solver.setVerbose(false);
+            return solver;
+        };
+        ForkJoinPool executor = new ForkJoinPool(threads);
+        BinaryBatchInput binaryInput = isBinaryInput() ? new BinaryBatchInput(Paths.get(input)) : null;
+        BufferedReader lines = binaryInput == null ? openTextInput() : null;
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        BinaryResultOutput binaryOut = null;
+        try {
+            BatchInput textInput = binaryInput == null ? new BatchInput(lines) : null;
+            Iterator<Puzzle> puzzles = binaryInput != null ? binaryInput : textInput;
+            Consumer<BatchResult> results = result -> out.println(result.toLine());
+            if (binaryOutput != null) {
+                BinaryResultOutput binaryResults;
+                if (binaryInput != null) {
+                    binaryResults = new BinaryResultOutput(Paths.get(binaryOutput), binaryInput.getBoardSize());
+                } else {
+                    textInput.requireOneSize(BinaryResultOutput.BOARD_SIZES); // size is taken from the first puzzle
+                    binaryResults = new BinaryResultOutput(Paths.get(binaryOutput));
+                }
+                binaryOut = binaryResults;
+                results = result -> {
+                    try {
+                        binaryResults.write(result);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                };
+            }
+            long started = System.nanoTime();
+            BatchSolver batchSolver = new BatchSolver(solverFactory, executor, maxInFlight, inputOrder);
+            if (maxNodes != Long.MAX_VALUE || maxMemory != Long.MAX_VALUE) {
+                batchSolver.setBudget(new SearchBudget(maxNodes, maxMemory));
+            }
+            if (timeoutMillis > 0) {
+                batchSolver.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            long solved = batchSolver.solve(puzzles, results);
+            out.flush();
+            System.err.printf("Solved %,d puzzles in %.1f s on %d threads\n", solved, (System.nanoTime() - started) / 1e9, threads);
+            if (cache != null) {
+                System.err.println(cache);
+                if (cacheFile != null) {
+                    cache.save(Paths.get(cacheFile));
+                }
+            }
+        } finally {
+            out.flush();
+            executor.shutdown();
+            if (binaryOut != null) {
+                binaryOut.close();
+            }
+            if (binaryInput != null) {
+                binaryInput.close();
+            } else {
+                lines.close();
+            }
+        }
+    }
+
+    /**
+     * Writes 15-puzzles of text input to binary file
+     */
+    private void convert() throws IOException {
+        Path file = Paths.get(convertFile);
+        try (BufferedReader lines = openTextInput(); BinaryBatchOutput out = new BinaryBatchOutput(file, BoardSize.FIFTEEN)) {
+            BatchInput puzzles = new BatchInput(lines);
+            while (puzzles.hasNext()) {
+                out.write(puzzles.next());
+            }
+            System.err.printf("Converted %,d puzzles to %s\n", out.getCount(), file);
+        }
+    }
+
+    private boolean isBinaryInput() throws IOException {
+        return !"-".equals(input) && BinaryBatchInput.isBinary(Paths.get(input));
+    }
+
+    private BufferedReader openTextInput() throws IOException {
+        Reader reader = "-".equals(input) ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8);
+        return new BufferedReader(reader);
+    }
+
+    /**
+     * Parallel solver uses all processor cores for every puzzle, so it's meant to be run with --threads 1
+     */
+    public static Solver createSolver(String name, PuzzleService puzzleService, Heuristic heuristic) {
+        switch (name) {
+            case "astar":
+                return new AStarSolver(puzzleService, heuristic);
+            case "idastar":
+                return new IDAStarSolver(puzzleService, heuristic);
+            case "parallel":
+                return new ParallelAStarSolver(puzzleService, heuristic);
+            case "bidirectional":
+                return new BidirectionalSolver(puzzleService, heuristic);
+            case "anytime":
+                return new AnytimeAStarSolver(puzzleService, heuristic);
+            default:
+                throw new IllegalArgumentException("Unknown algorithm: " + name);
+        }
+    }
+
+    /**
+     * @return given heuristic lifted by perimeter database of given depth, which is generated on first use
+     */
+    public static Heuristic withPerimeter(Heuristic heuristic, int depth) throws IOException {
+        Path file = Paths.get("perimeter-" + depth + ".bin");
+        return new PerimeterHeuristic(PerimeterDatabase.loadOrGenerate(file, depth), heuristic);
+    }
+
+    public static Heuristic createHeuristic(String name) throws IOException {
+        switch (name) {
+            case "wrong":
+                return new WrongCellsHeuristic();
+            case "manhattan":
+                return new ManhattanDistanceHeuristic();
+            case "linear":
+                return new LinearConflictHeuristic();
+            case "walking":
+                return new WalkingDistanceHeuristic();
+            case "pdb":
+                String partition = PatternDatabaseHeuristic.PARTITION_663_NAME;
+                return PatternDatabaseHeuristic.loadOrGenerate(Paths.get("pdb-" + partition + ".bin"),
+                        PatternDatabaseHeuristic.partition(partition), PatternDatabaseHeuristic.printProgress(System.err));
+            default:
+                throw new IllegalArgumentException("Unknown heuristic: " + name);
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+package puzzle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ *
+ * Supported board sizes, each has its own packed state representation:
+ *      3x3 - one <code>int</code> ({@link SmallPackedPuzzle}), 4x4 - one <code>long</code> ({@link PackedPuzzle}),
+ *      5x5 - two <code>long</code>s ({@link WidePackedPuzzle})
+ *
+ * @author Marius
+ *
+ */
+public enum BoardSize {
+    EIGHT(3), FIFTEEN(4), TWENTY_FOUR(5);
+
+    /**
+     * Directions of empty cell move, in the same order as {@link #getNeighbours}
+     */
+    public static final int LEFT = 0;
+    public static final int RIGHT = 1;
+    public static final int DOWN = 2;
+    public static final int UP = 3;
+
+    private final int edge;
+    private final int cells;
+    private final List<Integer> solvedValues;
+    private final int[][] neighbours;
+    private final int[] neighbourOffsets;
+
+    private BoardSize(int edge) {
+        this.edge = edge;
+        this.cells = edge * edge;
+        List<Integer> values = new ArrayList<Integer>();
+        for (int value = 1; value < cells; value++) {
+            values.add(value);
+        }
+        values.add(0);
+        this.solvedValues = Collections.unmodifiableList(values);
+        this.neighbours = createNeighbours(edge);
+        this.neighbourOffsets = new int[] { -1, 1, edge, -edge };
+    }
+
+    /**
+     * @throws IllegalArgumentException if no board has given amount of cells
+     */
+    public static BoardSize ofCells(int cells) {
+        for (BoardSize size : values()) {
+            if (size.cells == cells) {
+                return size;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported amount of cells: " + cells + ", must be 9, 16 or 25");
+    }
+
+    /**
+     * @throws IllegalArgumentException if no board has given edge
+     */
+    public static BoardSize ofEdge(int edge) {
+        return ofCells(edge * edge);
+    }
+
+    public int getEdge() {
+        return edge;
+    }
+
+    public int getCells() {
+        return cells;
+    }
+
+    /**
+     * @return values of solved puzzle, left to right, top to bottom
+     */
+    public List<Integer> getSolvedValues() {
+        return solvedValues;
+    }
+
+    /**
+     * @return <code>true</code> if given values are unique set from 0 to amount of cells - 1
+     */
+    public boolean isValid(List<Integer> values) {
+        return values.size() == cells && values.containsAll(solvedValues);
+    }
+
+    /**
+     * @return indexes of cells next to given one (left, right, below, above), array is shared and must not be changed
+     */
+    public int[] getNeighbours(int index) {
+        return neighbours[index];
+    }
+
+    /**
+     * @param direction - {@link #LEFT}, {@link #RIGHT}, {@link #DOWN} or {@link #UP}
+     * @return difference of cell index after empty cell moves in given direction
+     */
+    public int getNeighbourOffset(int direction) {
+        return neighbourOffsets[direction];
+    }
+
+    /**
+     * @return direction of empty cell move between given neighbour cells
+     */
+    public int getDirection(int from, int to) {
+        int offset = to - from;
+        return offset == -1 ? LEFT : offset == 1 ? RIGHT : offset == edge ? DOWN : UP;
+    }
+
+    public String getName() {
+        return (cells - 1) + "-puzzle";
+    }
+
+    private static int[][] createNeighbours(int edge) {
+        int[][] neighbours = new int[edge * edge][];
+        for (int index = 0; index < neighbours.length; index++) {
+            int row = index / edge;
+            int column = index % edge;
+            int[] cells = new int[4];
+            int count = 0;
+            if (column > 0) {
+                cells[count++] = index - 1;
+            }
+            if (column < edge - 1) {
+                cells[count++] = index + 1;
+            }
+            if (row < edge - 1) {
+                cells[count++] = index + edge;
+            }
+            if (row > 0) {
+                cells[count++] = index - edge;
+            }
+            neighbours[index] = Arrays.copyOf(cells, count);
+        }
+        return neighbours;
+    }
+
+}
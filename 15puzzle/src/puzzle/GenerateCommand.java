@@ -0,0 +1,195 @@
+package puzzle;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import solver.batch.BatchInput;
+import solver.batch.BinaryBatchInput;
+import solver.batch.BinaryBatchOutput;
+
+/**
+ *
+ * Command line generator: writes random puzzles (see {@link PuzzleGenerator}) to batch file
+ *
+ * Puzzles are generated in chunks on all processor cores and written in chunk order. Every chunk has its own
+ *      generator, split from the seeded one in chunk order, so the same seed gives the same file on any amount of threads.
+ * File is binary (see {@link BinaryBatchInput}), or text (see {@link BatchInput}) with --text.
+ *
+ * @author Marius
+ *
+ */
+public class GenerateCommand {
+
+    public static final String USAGE = "Usage: --generate <file> [--count N] [--mode uniform|walk] [--depth MOVES]"
+            + " [--size 3|4] [--seed N] [--threads N] [--text]";
+
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private String output;
+    private long count = 1000;
+    private boolean walk;
+    private int depth = 100;
+    private BoardSize size = BoardSize.FIFTEEN;
+    private long seed = System.nanoTime();
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean text;
+
+    /**
+     * @param args - command line arguments, starting with --generate
+     */
+    public static void run(String[] args) throws IOException, InterruptedException {
+        GenerateCommand command = new GenerateCommand();
+        if (!command.parse(args)) {
+            System.out.println(USAGE);
+            return;
+        }
+        command.run();
+    }
+
+    private boolean parse(String[] args) {
+        if (args.length < 2 || !"--generate".equals(args[0])) {
+            return false;
+        }
+        output = args[1];
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--count":
+                    count = Long.parseLong(args[++i]);
+                    break;
+                case "--mode":
+                    String mode = args[++i];
+                    if (!"uniform".equals(mode) && !"walk".equals(mode)) {
+                        return false;
+                    }
+                    walk = "walk".equals(mode);
+                    break;
+                case "--depth":
+                    depth = Integer.parseInt(args[++i]);
+                    break;
+                case "--size":
+                    int edge = Integer.parseInt(args[++i]);
+                    if (edge != BoardSize.EIGHT.getEdge() && edge != BoardSize.FIFTEEN.getEdge()) {
+                        return false;
+                    }
+                    size = BoardSize.ofEdge(edge);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--text":
+                    text = true;
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return count >= 0 && depth >= 0 && threads > 0;
+    }
+
+    private void run() throws IOException, InterruptedException {
+        Path file = Paths.get(output);
+        PuzzleGenerator generator = new PuzzleGenerator(size, seed);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Deque<Future<long[]>> chunks = new ArrayDeque<Future<long[]>>();
+        long started = System.nanoTime();
+        try (PuzzleWriter out = text ? new TextWriter(file, size) : new BinaryWriter(file, size)) {
+            long submitted = 0;
+            while (submitted < count || !chunks.isEmpty()) {
+                while (submitted < count && chunks.size() < threads * 2) {
+                    int chunkSize = (int) Math.min(CHUNK_SIZE, count - submitted);
+                    PuzzleGenerator chunkGenerator = generator.split();
+                    chunks.add(executor.submit(() -> generate(chunkGenerator, chunkSize)));
+                    submitted += chunkSize;
+                }
+                for (long cells : chunks.remove().get()) {
+                    out.write(cells);
+                }
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        System.err.printf("Generated %,d puzzles to %s in %.1f s (seed %d)\n", count, file, (System.nanoTime() - started) / 1e9, seed);
+    }
+
+    private long[] generate(PuzzleGenerator generator, int chunkSize) {
+        long[] chunk = new long[chunkSize];
+        for (int i = 0; i < chunkSize; i++) {
+            chunk[i] = walk ? generator.walkCells(depth) : generator.uniformCells();
+        }
+        return chunk;
+    }
+
+    private interface PuzzleWriter extends AutoCloseable {
+
+        void write(long cells) throws IOException;
+
+        @Override
+        void close() throws IOException;
+
+    }
+
+    private static class BinaryWriter implements PuzzleWriter {
+
+        private final BinaryBatchOutput out;
+
+        BinaryWriter(Path file, BoardSize size) throws IOException {
+            this.out = new BinaryBatchOutput(file, size);
+        }
+
+        @Override
+        public void write(long cells) throws IOException {
+            out.writeCells(cells);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+    }
+
+    private static class TextWriter implements PuzzleWriter {
+
+        private final BufferedWriter out;
+        private final BoardSize size;
+        private final StringBuilder line = new StringBuilder();
+
+        TextWriter(Path file, BoardSize size) throws IOException {
+            this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            this.size = size;
+        }
+
+        @Override
+        public void write(long cells) throws IOException {
+            line.setLength(0);
+            for (int i = 0; i < size.getCells(); i++) {
+                int value = size == BoardSize.EIGHT ? SmallPackedPuzzle.getCell((int) cells, i) : PackedPuzzle.getCell(cells, i);
+                line.append(i == 0 ? "" : " ").append(value);
+            }
+            out.write(line.toString());
+            out.newLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,244 @@
+package puzzle;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import solver.batch.BatchInput;
+import solver.batch.SolveServer;
+
+/**
+ *
+ * Command line load generator: sends puzzles to {@link SolveServer} over several connections and prints
+ *      throughput and latency percentiles
+ *
+ * Every connection has its own sender and receiver thread, sender keeps up to --pipeline requests waiting
+ *      for response. Latency is measured from sending request to receiving its response, so it includes
+ *      network, queueing and solving time. Puzzles are read from text file (see {@link BatchInput}),
+ *      or generated as random walks of given depth (see {@link PuzzleGenerator}).
+ *
+ * @author Marius
+ *
+ */
+public class LoadCommand {
+
+    public static final String USAGE = "Usage: --load <host:port> [--input FILE] [--count N] [--connections N]"
+            + " [--pipeline N] [--depth MOVES] [--seed N] [--timeout MS]";
+
+    private String host;
+    private int port;
+    private String input;
+    private int count = 10000;
+    private int connections = 4;
+    private int pipeline = 1;
+    private int depth = 30;
+    private long seed = 1;
+    private long timeoutMillis = -1;
+
+    /**
+     * @param args - command line arguments, starting with --load
+     */
+    public static void run(String[] args) throws IOException, InterruptedException {
+        LoadCommand command = new LoadCommand();
+        if (!command.parse(args)) {
+            System.out.println(USAGE);
+            return;
+        }
+        command.run();
+    }
+
+    private boolean parse(String[] args) {
+        if (args.length < 2 || !"--load".equals(args[0]) || args[1].lastIndexOf(':') < 0) {
+            return false;
+        }
+        host = args[1].substring(0, args[1].lastIndexOf(':'));
+        port = Integer.parseInt(args[1].substring(args[1].lastIndexOf(':') + 1));
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--input":
+                    input = args[++i];
+                    break;
+                case "--count":
+                    count = Integer.parseInt(args[++i]);
+                    break;
+                case "--connections":
+                    connections = Integer.parseInt(args[++i]);
+                    break;
+                case "--pipeline":
+                    pipeline = Integer.parseInt(args[++i]);
+                    break;
+                case "--depth":
+                    depth = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--timeout":
+                    timeoutMillis = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return count > 0 && connections > 0 && pipeline > 0;
+    }
+
+    private void run() throws IOException, InterruptedException {
+        List<String> requests = createRequests();
+        List<Client> clients = new ArrayList<Client>();
+        for (int i = 0; i < connections; i++) {
+            int requestCount = count / connections + (i < count % connections ? 1 : 0);
+            clients.add(new Client(new Socket(host, port), requests, i, requestCount));
+        }
+        long started = System.nanoTime();
+        for (Client client : clients) {
+            client.start();
+        }
+        long[] latencies = new long[count];
+        int received = 0;
+        int failed = 0;
+        for (Client client : clients) {
+            client.join();
+            if (client.error != null) {
+                throw client.error;
+            }
+            System.arraycopy(client.latencies, 0, latencies, received, client.latencies.length);
+            received += client.latencies.length;
+            failed += client.failed;
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        Arrays.sort(latencies);
+        System.out.printf("Requests %,d (not solved %,d) over %d connections, pipeline %d, in %.2f s: %,.0f requests/s\n",
+                received, failed, connections, pipeline, seconds, received / seconds);
+        System.out.printf("Latency ms: p50 %.3f, p90 %.3f, p99 %.3f, p99.9 %.3f, max %.3f\n", percentile(latencies, 0.5),
+                percentile(latencies, 0.9), percentile(latencies, 0.99), percentile(latencies, 0.999), latencies[count - 1] / 1e6);
+    }
+
+    private List<String> createRequests() throws IOException {
+        List<Puzzle> puzzles = new ArrayList<Puzzle>();
+        if (input != null) {
+            BatchInput batchInput = new BatchInput(Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8));
+            while (batchInput.hasNext()) {
+                puzzles.add(batchInput.next());
+            }
+        } else {
+            PuzzleGenerator generator = new PuzzleGenerator(BoardSize.FIFTEEN, seed);
+            for (int i = 0; i < Math.min(count, 1 << 16); i++) {
+                puzzles.add(generator.walk(depth));
+            }
+        }
+        if (puzzles.isEmpty()) {
+            throw new IllegalArgumentException("No puzzles in " + input);
+        }
+        List<String> requests = new ArrayList<String>(puzzles.size());
+        for (Puzzle puzzle : puzzles) {
+            StringBuilder line = new StringBuilder();
+            if (timeoutMillis > 0) {
+                line.append(timeoutMillis).append(':');
+            }
+            int edge = puzzle.getSize().getEdge();
+            for (int i = 0; i < edge * edge; i++) {
+                line.append(i == 0 ? "" : " ").append(puzzle.getCell(i / edge, i % edge));
+            }
+            requests.add(line.append('\n').toString());
+        }
+        return requests;
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * fraction) - 1)] / 1e6;
+    }
+
+    /**
+     * One connection: this thread sends requests, receiver thread reads responses
+     */
+    private class Client extends Thread {
+
+        private final Socket socket;
+        private final List<String> requests;
+        private final int first;
+        private final AtomicLongArray sentNanos; // written by sender, read by receiver
+        private final long[] latencies;
+        private final Semaphore window = new Semaphore(pipeline);
+        private final Thread receiver = new Thread(this::receive);
+        private volatile IOException error;
+        private int failed;
+
+        /**
+         * @param first - index of the first request, every next one is taken after amount of connections
+         */
+        Client(Socket socket, List<String> requests, int first, int requestCount) throws IOException {
+            this.socket = socket;
+            this.requests = requests;
+            this.first = first;
+            this.sentNanos = new AtomicLongArray(requestCount);
+            this.latencies = new long[requestCount];
+            socket.setTcpNoDelay(true);
+            receiver.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            receiver.start();
+            try {
+                BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+                for (int i = 0; i < sentNanos.length(); i++) {
+                    if (!window.tryAcquire()) {
+                        out.flush(); // send buffered requests before waiting for their responses
+                        window.acquire();
+                    }
+                    sentNanos.set(i, System.nanoTime());
+                    out.write(requests.get((int) ((first + (long) i * connections) % requests.size())));
+                }
+                out.flush();
+                receiver.join();
+            } catch (IOException ex) {
+                error = ex;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    socket.close(); // stops receiver, if sender failed
+                } catch (IOException ex) {
+                    error = error == null ? ex : error;
+                }
+            }
+        }
+
+        private void receive() {
+            try {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                for (int i = 0; i < latencies.length; i++) {
+                    String line = in.readLine();
+                    long receivedNanos = System.nanoTime();
+                    if (line == null) {
+                        throw new IOException("Server closed connection after " + i + " responses");
+                    }
+                    int tab = line.indexOf('\t');
+                    int index = Integer.parseInt(line.substring(0, tab));
+                    latencies[i] = receivedNanos - sentNanos.get(index);
+                    if (line.charAt(tab + 1) == '-') {
+                        failed++;
+                    }
+                    window.release();
+                }
+            } catch (IOException | RuntimeException ex) {
+                error = ex instanceof IOException ? (IOException) ex : new IOException(ex);
+                window.release(latencies.length); // unblock sender
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,276 @@
+package puzzle;
+
+import java.util.AbstractSequentialList;
+import java.util.Arrays;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+/**
+ *
+ * Solution kept as its first puzzle and moves of empty cell (2 bits per move, see {@link BoardSize#getDirection}),
+ *      so 80 moves take 20 bytes instead of 81 puzzles
+ *
+ * It's a read only list of all puzzles from first to last one. Puzzles are replayed on demand by iterator, every
+ *      returned puzzle is a new copy, so getting one by index costs as many moves as it's far from iterator.
+ *      {@link #getMovedTiles} and {@link SolutionRenderer} read moves without making puzzles.
+ *
+ * @author Marius
+ *
+ */
+public final class MoveSequence extends AbstractSequentialList<Puzzle> {
+
+    private static final int MOVES_PER_BYTE = 4;
+
+    private final Puzzle start;
+    private final byte[] moves;
+    private final int firstMove; // index of first move in moves array, suffixes share array of whole sequence
+    private final int length;
+
+    /**
+     * @param start - first puzzle, it's copied
+     * @param moves - packed directions, 4 per byte starting from the lowest bits, array isn't copied
+     * @param length - amount of moves
+     */
+    public MoveSequence(Puzzle start, byte[] moves, int length) {
+        this(start.copy(), moves, 0, length);
+        if (moves.length < packedLength(length)) {
+            throw new IllegalArgumentException("Expected " + packedLength(length) + " bytes of moves, got " + moves.length);
+        }
+    }
+
+    private MoveSequence(Puzzle start, byte[] moves, int firstMove, int length) {
+        this.start = start;
+        this.moves = moves;
+        this.firstMove = firstMove;
+        this.length = length;
+    }
+
+    /**
+     * @return amount of bytes taken by given amount of packed moves
+     */
+    public static int packedLength(int moves) {
+        return (moves + MOVES_PER_BYTE - 1) / MOVES_PER_BYTE;
+    }
+
+    /**
+     * @return copy of first puzzle
+     */
+    public Puzzle getStart() {
+        return start.copy();
+    }
+
+    public BoardSize getBoardSize() {
+        return start.getSize();
+    }
+
+    public int getMoveCount() {
+        return length;
+    }
+
+    /**
+     * @param move - index of move, from 0 to {@link #getMoveCount()} - 1
+     * @return direction of empty cell in given move, see {@link BoardSize#getNeighbourOffset}
+     */
+    public int getDirection(int move) {
+        int index = firstMove + move;
+        return (moves[index >> 2] >>> ((index & 3) << 1)) & 3;
+    }
+
+    /**
+     * @return copy of moves, packed same way as given to constructor
+     */
+    public byte[] getPackedMoves() {
+        if (firstMove == 0) {
+            return Arrays.copyOf(moves, packedLength(length));
+        }
+        byte[] packed = new byte[packedLength(length)];
+        for (int i = 0; i < length; i++) {
+            packed[i >> 2] |= getDirection(i) << ((i & 3) << 1);
+        }
+        return packed;
+    }
+
+    /**
+     * @return values of cells moved into empty cell, in move order
+     */
+    public int[] getMovedTiles() {
+        int[] tiles = new int[length];
+        Puzzle board = start.copy();
+        for (int i = 0; i < length; i++) {
+            int tileIndex = tileIndex(board, i);
+            tiles[i] = board.getCell(tileIndex / board.getSize().getEdge(), tileIndex % board.getSize().getEdge());
+            board.move(tileIndex);
+        }
+        return tiles;
+    }
+
+    /**
+     * @return sequence from puzzle after given amount of moves to the last one, sharing moves with this one
+     */
+    public MoveSequence suffix(int moves) {
+        if (moves < 0 || moves > length) {
+            throw new IndexOutOfBoundsException("Moves: " + moves + ", length: " + length);
+        }
+        Puzzle board = start.copy();
+        for (int i = 0; i < moves; i++) {
+            board.move(tileIndex(board, i));
+        }
+        return new MoveSequence(board, this.moves, firstMove + moves, length - moves);
+    }
+
+    @Override
+    public int size() {
+        return length + 1;
+    }
+
+    @Override
+    public ListIterator<Puzzle> listIterator(int index) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+        return new Replay(index);
+    }
+
+    /**
+     * @return index of cell, which moves into empty cell of given board in given move
+     */
+    int tileIndex(Puzzle board, int move) {
+        return board.getEmptyIndex() + board.getSize().getNeighbourOffset(getDirection(move));
+    }
+
+    /**
+     * Iterator, which moves one board back and forth and returns its copies
+     */
+    private class Replay implements ListIterator<Puzzle> {
+        private final Puzzle board = start.copy();
+        private int position; // index of puzzle board is at
+        private int index; // index of puzzle returned by next
+
+        Replay(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index <= length;
+        }
+
+        @Override
+        public Puzzle next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            moveTo(index++);
+            return board.copy();
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return index > 0;
+        }
+
+        @Override
+        public Puzzle previous() {
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            moveTo(--index);
+            return board.copy();
+        }
+
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        private void moveTo(int target) {
+            for (; position < target; position++) {
+                board.move(tileIndex(board, position));
+            }
+            for (; position > target; position--) { // undo moves empty cell back
+                board.move(board.getEmptyIndex() - board.getSize().getNeighbourOffset(getDirection(position - 1)));
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Move sequence is read only");
+        }
+
+        @Override
+        public void set(Puzzle puzzle) {
+            throw new UnsupportedOperationException("Move sequence is read only");
+        }
+
+        @Override
+        public void add(Puzzle puzzle) {
+            throw new UnsupportedOperationException("Move sequence is read only");
+        }
+    }
+
+    /**
+     * Collects empty cell indexes of all puzzles of solution (first one included), from either end,
+     *      so solvers can backtrack from last puzzle
+     */
+    public static class Builder {
+        private final Puzzle start;
+        private int[] emptyIndexes = new int[128];
+        private int head = emptyIndexes.length / 2;
+        private int tail = head;
+
+        /**
+         * @param start - first puzzle of solution
+         */
+        public Builder(Puzzle start) {
+            this.start = start;
+        }
+
+        public Builder addFirst(int emptyIndex) {
+            if (head == 0) {
+                grow();
+            }
+            emptyIndexes[--head] = emptyIndex;
+            return this;
+        }
+
+        public Builder addLast(int emptyIndex) {
+            if (tail == emptyIndexes.length) {
+                grow();
+            }
+            emptyIndexes[tail++] = emptyIndex;
+            return this;
+        }
+
+        /**
+         * @throws IllegalStateException if first empty cell index isn't the one of start puzzle
+         */
+        public MoveSequence build() {
+            if (tail == head || emptyIndexes[head] != start.getEmptyIndex()) {
+                throw new IllegalStateException("Solution doesn't start with empty cell index " + start.getEmptyIndex());
+            }
+            int length = tail - head - 1;
+            byte[] moves = new byte[packedLength(length)];
+            BoardSize size = start.getSize();
+            for (int i = 0; i < length; i++) {
+                moves[i >> 2] |= size.getDirection(emptyIndexes[head + i], emptyIndexes[head + i + 1]) << ((i & 3) << 1);
+            }
+            return new MoveSequence(start, moves, length);
+        }
+
+        private void grow() { // keeps free space at both ends
+            int count = tail - head;
+            int[] grown = new int[emptyIndexes.length * 2];
+            int newHead = (grown.length - count) / 2;
+            System.arraycopy(emptyIndexes, head, grown, newHead, count);
+            emptyIndexes = grown;
+            head = newHead;
+            tail = newHead + count;
+        }
+    }
+
+}
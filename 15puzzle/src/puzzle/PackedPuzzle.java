@@ -0,0 +1,144 @@
+package puzzle;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ *
+ * Compact puzzle board state: all 16 cells are packed as 4 bit nibbles into one <code>long</code>,
+ *      together with index of empty cell.
+ *
+ * Cell with index i (row i / EDGE, column i % EDGE) is stored in bits [4 * i, 4 * i + 3].
+ * Static methods work directly on packed values, so solvers can keep states in primitive structures
+ *      without creating any objects. Instance methods wrap one mutable state for in-place moves.
+ *
+ * @author Marius
+ *
+ */
+public final class PackedPuzzle {
+    public static final int CELLS = Puzzle.EDGE * Puzzle.EDGE;
+    public static final long SOLVED = 0x0FEDCBA987654321L;
+
+    private static final long ONES = 0x1111111111111111L;
+    private static final long HIGHS = 0x8888888888888888L;
+
+    private long cells;
+    private int emptyIndex;
+
+    public PackedPuzzle(long cells) {
+        this(cells, emptyIndex(cells));
+    }
+
+    public PackedPuzzle(long cells, int emptyIndex) {
+        this.cells = cells;
+        this.emptyIndex = emptyIndex;
+    }
+
+    public PackedPuzzle(Puzzle puzzle) {
+        this(puzzle.getCells(), puzzle.getEmptyIndex());
+    }
+
+    /**
+     * Makes a move with given cell (swaps given with empty)
+     * @param tileIndex - index of cell to put in empty space
+     */
+    public void move(int tileIndex) {
+        cells = move(cells, emptyIndex, tileIndex);
+        emptyIndex = tileIndex;
+    }
+
+    public long getCells() {
+        return cells;
+    }
+
+    public int getEmptyIndex() {
+        return emptyIndex;
+    }
+
+    public int getCell(int index) {
+        return getCell(cells, index);
+    }
+
+    public Puzzle toPuzzle() {
+        return new Puzzle(cells);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PackedPuzzle && ((PackedPuzzle) o).cells == cells;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash(cells);
+    }
+
+    /**
+     * @param values - puzzle values, collected from left to right, top to bottom
+     * @return packed puzzle state
+     */
+    public static long pack(List<Integer> values) {
+        long cells = 0;
+        Iterator<Integer> iterator = values.iterator();
+        for (int i = 0; i < CELLS; i++) {
+            cells = setCell(cells, i, iterator.next());
+        }
+        return cells;
+    }
+
+    public static int getCell(long cells, int index) {
+        return (int) (cells >>> (index << 2)) & 0xF;
+    }
+
+    public static long setCell(long cells, int index, int value) {
+        int shift = index << 2;
+        return (cells & ~(0xFL << shift)) | ((long) value << shift);
+    }
+
+    /**
+     * Finds cell index without looping through cells: every nibble equal to value becomes zero after xor,
+     *      and lowest zero nibble is detected with a single subtraction
+     * @return index of given value, or {@link #CELLS} if value is not present
+     */
+    public static int indexOf(long cells, int value) {
+        long x = cells ^ (value * ONES);
+        long zeros = (x - ONES) & ~x & HIGHS;
+        return Long.numberOfTrailingZeros(zeros) >>> 2;
+    }
+
+    public static int emptyIndex(long cells) {
+        return indexOf(cells, 0);
+    }
+
+    /**
+     * @param cells - current state
+     * @param emptyIndex - index of empty cell in current state
+     * @param tileIndex - index of cell to put in empty space
+     * @return state with the move applied
+     */
+    public static long move(long cells, int emptyIndex, int tileIndex) {
+        long tile = (cells >>> (tileIndex << 2)) & 0xF;
+        return (cells | (tile << (emptyIndex << 2))) & ~(0xFL << (tileIndex << 2));
+    }
+
+    /**
+     * Spreads all 64 bits of state into 32 bit hash (finalizer of MurmurHash3)
+     */
+    public static int hash(long cells) {
+        long h = cells;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    public static int row(int index) {
+        return index / Puzzle.EDGE;
+    }
+
+    public static int column(int index) {
+        return index % Puzzle.EDGE;
+    }
+}
@@ -3,13 +3,20 @@ package puzzle;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * 
+ *
  * Class for storing puzzle board state and making moves
- * 
+ *
+ * Board is kept in packed form of its size (see {@link BoardSize}), this class is only a view for CLI and results.
+ *      15-puzzle is the default size: constructors take its values, {@link #of} and {@link #solved} make any size.
+ * Board size is kept in the same field as empty cell index, so 3x3 and 4x4 puzzles are 24 bytes, the same
+ *      as 4x4 puzzle was before sizes were added. Second word of 5x5 board is kept by its subclass.
+ * Zobrist key of board (see {@link ZobristHash}) is computed only when asked for, as searches hash packed states.
+ *      5x5 subclass keeps its key updated by every move, it's the source of its {@link #hashCode}.
+ *
  * @author Marius
  *
  */
@@ -17,34 +24,70 @@ public class Puzzle {
     public static final List<Integer> solvedArray = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 0);
     public static final Puzzle SOLVED = new Puzzle(solvedArray);
     public static final int EDGE = 4;
-    
-    private ArrayList<Point> cellCoords = new ArrayList<Point>();
-    private int[][] cells;
-    private Point emptyCell;
+
+    private static final int EMPTY_INDEX_MASK = 0xFF;
+    private static final int SIZE_SHIFT = 8;
+    private static final int FIFTEEN_SHAPE = BoardSize.FIFTEEN.ordinal() << SIZE_SHIFT;
+    private static final BoardSize[] SIZES = BoardSize.values();
+    private static final List<List<Point>> cellCoords = createCellCoords();
+    private long cells;
+    private int shape; // empty cell index in low byte, board size ordinal above it
 
     public Puzzle() {
         this(solvedArray);
     }
 
+    /**
+     * @param values - 15-puzzle values, collected from left to right, top to bottom
+     */
     public Puzzle(List<Integer> values) {
-        Iterator<Integer> iterator = values.iterator();
-        cells = new int[EDGE][EDGE];
-        for (int i = 0; i < EDGE; i++) {
-            for (int j = 0; j < EDGE; j++) {
-                cellCoords.add(new Point(i, j));
-                int num = iterator.next();
-                if (num == 0) {
-                    emptyCell = new Point(i, j);
-                }
-                cells[i][j] = num;
-            }
-        }
+        this(PackedPuzzle.pack(values));
+    }
+
+    /**
+     * @param cells - packed 15-puzzle state, see {@link PackedPuzzle}
+     */
+    public Puzzle(long cells) {
+        this.cells = cells;
+        this.shape = PackedPuzzle.emptyIndex(cells) | BoardSize.FIFTEEN.ordinal() << SIZE_SHIFT;
+    }
+
+    /**
+     * @param cells - packed state of given size, low word for 5x5 board
+     */
+    Puzzle(BoardSize size, long cells, int emptyIndex) {
+        this.cells = cells;
+        this.shape = emptyIndex | size.ordinal() << SIZE_SHIFT;
     }
 
+    /**
+     * Copy of 3x3 or 4x4 puzzle, see {@link #copy} for any size
+     */
     public Puzzle(Puzzle clone) {
-        this();
-        cellCoords.forEach(coord -> cells[coord.x][coord.y] = clone.getCell(coord));
-        emptyCell = clone.getEmptyCell();
+        this.cells = clone.cells;
+        this.shape = clone.shape;
+    }
+
+    /**
+     * @param values - puzzle values, collected from left to right, top to bottom, their amount defines board size
+     */
+    public static Puzzle of(List<Integer> values) {
+        switch (BoardSize.ofCells(values.size())) {
+            case EIGHT:
+                return SmallPackedPuzzle.toPuzzle(SmallPackedPuzzle.pack(values));
+            case TWENTY_FOUR:
+                return new WidePackedPuzzle(values).toPuzzle();
+            default:
+                return new Puzzle(values);
+        }
+    }
+
+    public static Puzzle solved(BoardSize size) {
+        return of(size.getSolvedValues());
+    }
+
+    public Puzzle copy() {
+        return new Puzzle(this);
     }
 
     /**
@@ -52,9 +95,20 @@ public class Puzzle {
      * @param cellToMove - cell to put in empty space
      */
     public void move(Point cellToMove) {
-        cells[emptyCell.x][emptyCell.y] = cells[cellToMove.x][cellToMove.y];
-        cells[cellToMove.x][cellToMove.y] = 0;
-        emptyCell = cellToMove;
+        move(isFifteen() ? cellToMove.x * EDGE + cellToMove.y : toIndex(cellToMove.x, cellToMove.y));
+    }
+
+    /**
+     * @param tileIndex - index of cell next to empty one (row * edge + column)
+     */
+    void move(int tileIndex) {
+        int emptyIndex = getEmptyIndex();
+        if (isFifteen()) {
+            cells = PackedPuzzle.move(cells, emptyIndex, tileIndex);
+        } else {
+            cells = SmallPackedPuzzle.move((int) cells, emptyIndex, tileIndex); // 5x5 subclass has its own move
+        }
+        setEmptyIndex(tileIndex);
     }
 
     /**
@@ -62,51 +116,137 @@ public class Puzzle {
      * @return returns coordinates of given value in this puzzle
      */
     public Point getCoordsOfValue(int value) {
-        for (Point coord : cellCoords) {
-            if (getCell(coord) == value) {
-                return new Point(coord.x, coord.y);
-            }
+        if (isFifteen()) {
+            int index = PackedPuzzle.indexOf(cells, value);
+            return index >= PackedPuzzle.CELLS ? null : new Point(PackedPuzzle.row(index), PackedPuzzle.column(index));
+        }
+        BoardSize size = getSize();
+        if (value < 0 || value >= size.getCells()) {
+            return null;
         }
-        return null;
+        int index;
+        switch (size) {
+            case EIGHT:
+                index = SmallPackedPuzzle.indexOf((int) cells, value);
+                break;
+            case TWENTY_FOUR:
+                index = WidePackedPuzzle.indexOf(cells, getHighCells(), value);
+                break;
+            default:
+                index = PackedPuzzle.indexOf(cells, value);
+        }
+        return new Point(index / size.getEdge(), index % size.getEdge());
     }
 
     public int getCell(Point p) {
-        return cells[p.x][p.y];
+        return getCell(p.x, p.y);
     }
 
     public int getCell(int x, int y) {
-        return cells[x][y];
+        if (isFifteen()) {
+            return PackedPuzzle.getCell(cells, x * EDGE + y);
+        }
+        int index = toIndex(x, y);
+        switch (getSize()) {
+            case EIGHT:
+                return SmallPackedPuzzle.getCell((int) cells, index);
+            case TWENTY_FOUR:
+                return WidePackedPuzzle.getCell(cells, getHighCells(), index);
+            default:
+                return PackedPuzzle.getCell(cells, index);
+        }
     }
 
     public Point getEmptyCell() {
-        return emptyCell;
+        if (isFifteen()) {
+            return new Point(PackedPuzzle.row(getEmptyIndex()), PackedPuzzle.column(getEmptyIndex()));
+        }
+        int edge = getSize().getEdge();
+        return new Point(getEmptyIndex() / edge, getEmptyIndex() % edge);
     }
-    
+
     public List<Point> getAllCellCoords() {
-        return this.cellCoords;
+        return cellCoords.get(shape >>> SIZE_SHIFT);
+    }
+
+    public BoardSize getSize() {
+        return SIZES[shape >>> SIZE_SHIFT];
+    }
+
+    /**
+     * @return packed board state: {@link PackedPuzzle} for 4x4, {@link SmallPackedPuzzle} for 3x3,
+     *      low word of {@link WidePackedPuzzle} for 5x5
+     */
+    public long getCells() {
+        return cells;
+    }
+
+    /**
+     * @return high word of {@link WidePackedPuzzle} for 5x5, 0 for other sizes
+     */
+    public long getHighCells() {
+        return 0;
+    }
+
+    public int getEmptyIndex() {
+        return shape & EMPTY_INDEX_MASK;
+    }
+
+    /**
+     * @return Zobrist key of board, see {@link ZobristHash}
+     */
+    public long getZobristKey() {
+        return ZobristHash.of(getSize(), cells, getHighCells());
     }
-    
+
+    /**
+     * Board size is not compared: 3x3 state (<code>int</code> widened to <code>long</code>) has equal upper nibbles,
+     *      so it can't be equal to any 4x4 state, and 5x5 puzzles are of other class
+     */
     @Override
     public boolean equals(Object o) {
-        if (o instanceof Puzzle) {
-            for (Point p : cellCoords) {
-                if (this.getCell(p) != ((Puzzle) o).getCell(p)) {
-                    return false;
-                }
-            }
-            return true;
-        }
-        return false;
+        return o != null && o.getClass() == getClass() && ((Puzzle) o).cells == cells;
     }
 
     @Override
     public int hashCode() {
-        int hash = 0;
-        int index = 1;
-        for (Point p : cellCoords) {
-            hash = (hash + this.getCell(p)) * index;
-            index++;
+        return PackedPuzzle.hash(cells);
+    }
+
+    void setState(long cells, int emptyIndex) {
+        this.cells = cells;
+        setEmptyIndex(emptyIndex);
+    }
+
+    /**
+     * 4x4 board is checked before any other size, so its methods stay as fast as before sizes were added
+     */
+    private boolean isFifteen() {
+        return (shape & ~EMPTY_INDEX_MASK) == FIFTEEN_SHAPE;
+    }
+
+    private void setEmptyIndex(int emptyIndex) {
+        shape = (shape & ~EMPTY_INDEX_MASK) | emptyIndex;
+    }
+
+    private int toIndex(int x, int y) {
+        return x * getSize().getEdge() + y;
+    }
+
+    /**
+     * @return coordinates of all cells of every board size, by {@link BoardSize#ordinal()}
+     */
+    private static List<List<Point>> createCellCoords() {
+        List<List<Point>> sizes = new ArrayList<List<Point>>();
+        for (BoardSize size : BoardSize.values()) {
+            List<Point> coords = new ArrayList<Point>();
+            for (int i = 0; i < size.getEdge(); i++) {
+                for (int j = 0; j < size.getEdge(); j++) {
+                    coords.add(new Point(i, j));
+                }
+            }
+            sizes.add(Collections.unmodifiableList(coords));
         }
-        return hash;
+        return sizes;
     }
 }
@@ -0,0 +1,178 @@
+package puzzle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ *
+ * Generates random puzzles from seeded random numbers, so the same seed always gives the same puzzles
+ *
+ * Uniform puzzles: values are shuffled (Fisher-Yates) with empty cell as one of them. Every swap changes parity
+ *      of permutation and every move of empty cell changes parity of its distance to its solved place, so puzzle
+ *      is solvable when both parities are equal. Otherwise two other cells are swapped, which maps every unsolvable
+ *      permutation to another solvable one, so all solvable puzzles are equally likely.
+ * Walks: given amount of random moves from solved puzzle, never undoing the previous move.
+ *
+ * Generator isn't thread safe, {@link #split} makes independent generator for another thread.
+ *      3x3 and 4x4 puzzles are generated as packed cells without creating objects.
+ *
+ * @author Marius
+ *
+ */
+public class PuzzleGenerator {
+
+    private final BoardSize size;
+    private final SplittableRandom random;
+    private final int[] values;
+
+    /**
+     * @param size - size of generated puzzles
+     * @param seed - seed of random numbers
+     */
+    public PuzzleGenerator(BoardSize size, long seed) {
+        this(size, new SplittableRandom(seed));
+    }
+
+    private PuzzleGenerator(BoardSize size, SplittableRandom random) {
+        this.size = size;
+        this.random = random;
+        this.values = new int[size.getCells()];
+    }
+
+    /**
+     * @return generator of the same board size with its own random numbers, split from this one's
+     */
+    public PuzzleGenerator split() {
+        return new PuzzleGenerator(size, random.split());
+    }
+
+    public BoardSize getBoardSize() {
+        return size;
+    }
+
+    /**
+     * @return uniformly random solvable puzzle
+     */
+    public Puzzle uniform() {
+        shuffleValues();
+        List<Integer> list = new ArrayList<Integer>(values.length);
+        for (int value : values) {
+            list.add(value);
+        }
+        return Puzzle.of(list);
+    }
+
+    /**
+     * @return packed cells of uniformly random solvable 3x3 or 4x4 puzzle, see {@link Puzzle#getCells}
+     */
+    public long uniformCells() {
+        checkPacked();
+        shuffleValues();
+        long cells = 0;
+        int stored = size == BoardSize.EIGHT ? SmallPackedPuzzle.CELLS - 1 : PackedPuzzle.CELLS; // 3x3 last cell is implied
+        for (int i = 0; i < stored; i++) {
+            cells |= (long) values[i] << (i << 2);
+        }
+        return size == BoardSize.EIGHT ? (int) cells : cells;
+    }
+
+    /**
+     * @param moves - amount of moves from solved puzzle
+     * @return puzzle made by given amount of random moves, none of them undoing the previous one
+     */
+    public Puzzle walk(int moves) {
+        Puzzle puzzle = Puzzle.solved(size);
+        walk(puzzle, moves);
+        return puzzle;
+    }
+
+    /**
+     * Makes given amount of random moves on given puzzle of any size, none of them undoing the previous one
+     */
+    public void walk(Puzzle puzzle, int moves) {
+        int previousEmpty = -1;
+        for (int i = 0; i < moves; i++) {
+            int emptyIndex = puzzle.getEmptyIndex();
+            puzzle.move(randomNeighbour(puzzle.getSize(), emptyIndex, previousEmpty));
+            previousEmpty = emptyIndex;
+        }
+    }
+
+    /**
+     * @return packed cells of 3x3 or 4x4 puzzle made by given amount of random moves, see {@link #walk(int)}
+     */
+    public long walkCells(int moves) {
+        checkPacked();
+        boolean small = size == BoardSize.EIGHT;
+        long cells = small ? SmallPackedPuzzle.SOLVED : PackedPuzzle.SOLVED;
+        int emptyIndex = size.getCells() - 1;
+        int previousEmpty = -1;
+        for (int i = 0; i < moves; i++) {
+            int tileIndex = randomNeighbour(size, emptyIndex, previousEmpty);
+            cells = small ? SmallPackedPuzzle.move((int) cells, emptyIndex, tileIndex) : PackedPuzzle.move(cells, emptyIndex, tileIndex);
+            previousEmpty = emptyIndex;
+            emptyIndex = tileIndex;
+        }
+        return cells;
+    }
+
+    /**
+     * @return random cell next to empty one, except the given previous empty cell
+     */
+    private int randomNeighbour(BoardSize board, int emptyIndex, int previousEmpty) {
+        int[] neighbours = board.getNeighbours(emptyIndex);
+        int choices = neighbours.length;
+        for (int neighbour : neighbours) {
+            if (neighbour == previousEmpty) {
+                choices--;
+            }
+        }
+        int choice = random.nextInt(choices);
+        for (int neighbour : neighbours) {
+            if (neighbour != previousEmpty && choice-- == 0) {
+                return neighbour;
+            }
+        }
+        throw new IllegalStateException("No move from cell " + emptyIndex);
+    }
+
+    /**
+     * Fills values with random solvable permutation
+     */
+    private void shuffleValues() {
+        int cells = values.length;
+        for (int i = 0; i < cells; i++) {
+            values[i] = i + 1 < cells ? i + 1 : 0;
+        }
+        int parity = 0;
+        for (int i = cells - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            if (j != i) {
+                int value = values[i];
+                values[i] = values[j];
+                values[j] = value;
+                parity ^= 1;
+            }
+        }
+        int emptyIndex = 0;
+        while (values[emptyIndex] != 0) {
+            emptyIndex++;
+        }
+        int edge = size.getEdge();
+        int emptyDistance = (edge - 1 - emptyIndex / edge) + (edge - 1 - emptyIndex % edge);
+        if (parity != (emptyDistance & 1)) {
+            int first = emptyIndex < 2 ? 2 : 0; // two cells, which aren't empty
+            int value = values[first];
+            values[first] = values[first + 1];
+            values[first + 1] = value;
+        }
+    }
+
+    private void checkPacked() {
+        if (size == BoardSize.TWENTY_FOUR) {
+            throw new IllegalStateException(size.getName() + " doesn't fit packed cells");
+        }
+    }
+
+}
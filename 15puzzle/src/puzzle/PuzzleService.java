@@ -2,6 +2,7 @@ package puzzle;
 
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -20,15 +21,16 @@ public class PuzzleService {
     public List<Point> getValidMoves(Puzzle puzzle) {
         ArrayList<Point> moves = new ArrayList<Point>();
         Point emptyCell = puzzle.getEmptyCell();
-        addIfValid(moves, new Point(emptyCell.x, emptyCell.y - 1)); // left
-        addIfValid(moves, new Point(emptyCell.x, emptyCell.y + 1)); // right
-        addIfValid(moves, new Point(emptyCell.x + 1, emptyCell.y)); // up
-        addIfValid(moves, new Point(emptyCell.x - 1, emptyCell.y)); // down
+        int edge = puzzle.getSize().getEdge();
+        addIfValid(moves, new Point(emptyCell.x, emptyCell.y - 1), edge); // left
+        addIfValid(moves, new Point(emptyCell.x, emptyCell.y + 1), edge); // right
+        addIfValid(moves, new Point(emptyCell.x + 1, emptyCell.y), edge); // up
+        addIfValid(moves, new Point(emptyCell.x - 1, emptyCell.y), edge); // down
         return moves;
     }
 
-    public void addIfValid(ArrayList<Point> moves, Point cellToMove) {
-        if (cellToMove.x < 0 || cellToMove.x >= Puzzle.EDGE || cellToMove.y < 0 || cellToMove.y >= Puzzle.EDGE) {
+    public void addIfValid(ArrayList<Point> moves, Point cellToMove, int edge) {
+        if (cellToMove.x < 0 || cellToMove.x >= edge || cellToMove.y < 0 || cellToMove.y >= edge) {
             return;
         }
         moves.add(cellToMove);
@@ -40,7 +42,7 @@ public class PuzzleService {
      * @return returns a <b>new</b> puzzle with the move applied
      */
     public Puzzle clone(Puzzle puzzle, Point cellToMove) {
-        Puzzle out = new Puzzle(puzzle);
+        Puzzle out = puzzle.copy();
         out.move(cellToMove);
         return out;
     }
@@ -54,8 +56,50 @@ public class PuzzleService {
         getValidMoves(puzzle).forEach(move -> adjacentPuzzles.add(clone(puzzle, move)));
         return adjacentPuzzles;
     }
+
+    /**
+     * @param cells - current packed puzzle state
+     * @return returns all packed states, which can be made by applying one move to current state
+     */
+    public long[] getAdjacentStates(long cells) {
+        long[] states = new long[4];
+        int count = getAdjacentStates(cells, -1, states);
+        return count == states.length ? states : Arrays.copyOf(states, count);
+    }
+
+    /**
+     * Allocation free version for search loops: states are written to buffer owned by caller and move back
+     *      to parent state, which search already has, is not made
+     * @param cells - current packed puzzle state
+     * @param parentEmptyIndex - empty cell index of parent state, or -1 if there's no parent
+     * @param buffer - array of at least 4 states, overwritten by every call
+     * @return amount of states written to the start of buffer
+     */
+    public int getAdjacentStates(long cells, int parentEmptyIndex, long[] buffer) {
+        int emptyIndex = PackedPuzzle.emptyIndex(cells);
+        int count = 0;
+        for (int tileIndex : BoardSize.FIFTEEN.getNeighbours(emptyIndex)) {
+            if (tileIndex != parentEmptyIndex) {
+                buffer[count++] = PackedPuzzle.move(cells, emptyIndex, tileIndex);
+            }
+        }
+        return count;
+    }
     
     /**
+     * @param puzzle - puzzle of any size
+     * @return logical value if puzzle is solvable
+     */
+    public boolean isSolvable(Puzzle puzzle) {
+        if (puzzle.getSize() == BoardSize.FIFTEEN) {
+            return isSolvable(puzzle.getCells());
+        }
+        return isSolvable(getValues2D(puzzle), puzzle.getEmptyCell().x);
+    }
+
+    /**
+     * Every move changes parity of inversions, except vertical moves on boards with odd edge (cell passes even amount
+     *      of others). So on odd edge boards inversion parity is constant, on even edge ones it changes with empty row.
      * @param list - 2d representation of puzzle, collected from left to right, top to bottom
      * @param emptyRow - row number of empty cell
      * @return logical value if puzzle is solvable
@@ -71,7 +115,31 @@ public class PuzzleService {
             }
         }
 
-        if (emptyRow % 2 != 0) { // empty on even row
+        int edge = BoardSize.ofCells(list.size()).getEdge();
+        if (edge % 2 != 0) {
+            return parity % 2 == 0;
+        }
+        return (parity + edge - 1 - emptyRow) % 2 == 0; // moves of empty cell to the last row keep parity even
+    }
+    
+    /**
+     * @param cells - packed 15-puzzle state
+     * @return logical value if puzzle is solvable
+     */
+    public boolean isSolvable(long cells) {
+        int parity = 0;
+
+        for (int i = 0; i < PackedPuzzle.CELLS; i++) {
+            int value = PackedPuzzle.getCell(cells, i);
+            for (int j = i + 1; j < PackedPuzzle.CELLS; j++) {
+                int other = PackedPuzzle.getCell(cells, j);
+                if (value > other && other != 0) {
+                    parity++;
+                }
+            }
+        }
+
+        if (PackedPuzzle.row(PackedPuzzle.emptyIndex(cells)) % 2 != 0) { // empty on even row
             return parity % 2 == 0;
         } else { // empty on odd row
             return parity % 2 != 0;
@@ -84,8 +152,9 @@ public class PuzzleService {
      */
     public List<Integer> getValues2D(Puzzle puzzle) {
         List<Integer> values2D = new ArrayList<>();
-        for (int x = 0; x < Puzzle.EDGE; x++) {
-            for (int y = 0; y < Puzzle.EDGE; y++) {
+        int edge = puzzle.getSize().getEdge();
+        for (int x = 0; x < edge; x++) {
+            for (int y = 0; y < edge; y++) {
                 values2D.add(puzzle.getCell(x, y));
             }
         }
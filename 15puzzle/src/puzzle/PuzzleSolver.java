@@ -1,6 +1,9 @@
 package puzzle;
 
-import java.awt.Point;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.InputMismatchException;
 import java.util.LinkedList;
@@ -8,8 +11,12 @@ import java.util.List;
 import java.util.Scanner;
 
 import solver.AStarSolver;
+import solver.MultiSizeSolver;
 import solver.heuristics.Heuristic;
+import solver.heuristics.LinearConflictHeuristic;
 import solver.heuristics.ManhattanDistanceHeuristic;
+import solver.heuristics.PatternDatabaseHeuristic;
+import solver.heuristics.WalkingDistanceHeuristic;
 import solver.heuristics.WrongCellsHeuristic;
 /**
  * 
@@ -21,59 +28,56 @@ import solver.heuristics.WrongCellsHeuristic;
 public class PuzzleSolver {
 
     private final PuzzleService puzzleService = new PuzzleService();
+    private final PuzzleGenerator generator = new PuzzleGenerator(BoardSize.FIFTEEN, System.nanoTime());
     private final Heuristic wrongCellsHeuristic = new WrongCellsHeuristic();
     private final Heuristic manhattanDistanceHeuristic = new ManhattanDistanceHeuristic();
+    private final Heuristic linearConflictHeuristic = new LinearConflictHeuristic();
+    private final Heuristic walkingDistanceHeuristic = new WalkingDistanceHeuristic();
+    private Heuristic patternDatabaseHeuristic; // loaded on first use
     private AStarSolver aStarSolver;
+    private MultiSizeSolver solver; // 15-puzzles are solved by aStarSolver
 
     public PuzzleSolver() {
         this.aStarSolver = new AStarSolver(puzzleService, manhattanDistanceHeuristic);
+        this.solver = new MultiSizeSolver(puzzleService, aStarSolver);
     }
     
     public void printPuzzle(Puzzle p) {
         StringBuilder result = new StringBuilder();
-        result.append("---------------------\n");
-        for (int i = 0; i < Puzzle.EDGE; i++) {
-            result.append("| ");
-            for (int j = 0; j < Puzzle.EDGE; j++) {
-                int n = p.getCell(i, j);
-                if (n > 9) {
-                    result.append(Integer.toString(n));
-                } else if (n > 0) {
-                    result.append(" " + Integer.toString(n));
-                } else {
-                    result.append("__");
-                }
-                result.append(" | ");
-            }
-            result.append("\n---------------------\n");
-        }
-        result.append("\n");
+        SolutionRenderer.appendPuzzle(result, p);
         System.out.print(result);
     }
 
     public void showSolution(List<Puzzle> solution) {
         if (solution != null) {
             System.out.printf("Here is puzzle solution in %d moves:\n", solution.size());
-            solution.forEach(puzzle -> printPuzzle(puzzle));
+            SolutionRenderer renderer = new SolutionRenderer(new OutputStreamWriter(System.out));
+            try {
+                renderer.render(solution);
+                renderer.flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
         } else {
             System.out.println("Puzzle is unsolvable.");
         }
     }
 
+    /**
+     * Makes given amount of random moves, none of them undoing the previous one, see {@link PuzzleGenerator#walk}
+     */
     public void shuffle(Puzzle puzzle, int movesAmount) {
-        for (int i = 0; i < movesAmount; i++) {
-            List<Point> validMoves = puzzleService.getValidMoves(puzzle);
-            int moveNo = (int) (Math.random() * validMoves.size());
-            puzzle.move(validMoves.get(moveNo));
-        }
+        generator.walk(puzzle, movesAmount);
     }
 
     public void solve(Puzzle puzzle) {
         System.out.println("Puzzle to solve:");
         printPuzzle(puzzle);
-        System.out.printf("Solving puzzle using \"%s\" heuristic\n", getHeuristicName());
-        boolean solvable = puzzleService.isSolvable(puzzleService.getValues2D(puzzle), puzzle.getEmptyCell().x);
-        showSolution(solvable ? aStarSolver.solve(puzzle) : null);
+        if (puzzle.getSize() == BoardSize.FIFTEEN) {
+            System.out.printf("Solving puzzle using \"%s\" heuristic\n", getHeuristicName());
+        }
+        boolean solvable = puzzleService.isSolvable(puzzle);
+        showSolution(solvable ? solver.solve(puzzle) : null);
     }
     
     public void printMenu(Scanner scanner) {
@@ -128,6 +132,7 @@ public class PuzzleSolver {
         System.out.println("---------------------");
         System.out.println("|  9 | 13 | 14 | 15 | ");
         System.out.println("---------------------");
+        System.out.println("3x3 (9 values) and 5x5 (25 values) puzzles are accepted too.");
         System.out.println("");
         String line = scanner.next();
         List<Integer> values = new LinkedList<>();
@@ -137,7 +142,7 @@ public class PuzzleSolver {
             if (!validateValues(values)) {
                 printSubmenu1(scanner); // repaint submenu
             } else {
-                Puzzle puzzle = new Puzzle(values);
+                Puzzle puzzle = Puzzle.of(values);
                 solve(puzzle);
             }
         } catch (NumberFormatException ex) { // controlable situation
@@ -147,12 +152,15 @@ public class PuzzleSolver {
     }
     
     private boolean validateValues(List<Integer> values) {
-        if (values.size() != Puzzle.EDGE * Puzzle.EDGE) {
-            System.out.println("Invalid amount of numbers, must be: " + Puzzle.EDGE * Puzzle.EDGE);
+        BoardSize size;
+        try {
+            size = BoardSize.ofCells(values.size());
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Invalid amount of numbers, must be: 9, 16 or 25");
             return false;
         }
-        if (!values.containsAll(Puzzle.solvedArray)) {
-            System.out.println("Invalid values, must be unique value set from 0 to 15");
+        if (!size.isValid(values)) {
+            System.out.println("Invalid values, must be unique value set from 0 to " + (size.getCells() - 1));
             return false;
         }
         return true;
@@ -162,6 +170,9 @@ public class PuzzleSolver {
         System.out.println("Pick heuristic:");
         System.out.println("1. " + WrongCellsHeuristic.HEURISTIC_NAME);
         System.out.println("2. " + ManhattanDistanceHeuristic.HEURISTIC_NAME);
+        System.out.println("3. " + PatternDatabaseHeuristic.HEURISTIC_NAME + " (" + PatternDatabaseHeuristic.PARTITION_663_NAME + ")");
+        System.out.println("4. " + LinearConflictHeuristic.HEURISTIC_NAME);
+        System.out.println("5. " + WalkingDistanceHeuristic.HEURISTIC_NAME);
         System.out.println("");
         int hOption = 0;
         try {
@@ -180,13 +191,44 @@ public class PuzzleSolver {
                 printMenu(scanner);
                 break;
             }
+            case 3: {
+                try {
+                    changeHeuristic(getPatternDatabaseHeuristic());
+                } catch (IOException ex) {
+                    System.out.println("Couldn't load pattern database: " + ex.getMessage());
+                }
+                printMenu(scanner);
+                break;
+            }
+            case 4: {
+                changeHeuristic(linearConflictHeuristic);
+                printMenu(scanner);
+                break;
+            }
+            case 5: {
+                changeHeuristic(walkingDistanceHeuristic);
+                printMenu(scanner);
+                break;
+            }
             default: {
-                System.out.println("Invalid input, choose 1 or 2");
+                System.out.println("Invalid input, choose from 1 to 5");
                 printSubmenu3(scanner);
             }
         }
     }
 
+    /**
+     * Pattern database file is generated in working directory on first use, which takes a while
+     */
+    private Heuristic getPatternDatabaseHeuristic() throws IOException {
+        if (patternDatabaseHeuristic == null) {
+            String partition = PatternDatabaseHeuristic.PARTITION_663_NAME;
+            patternDatabaseHeuristic = PatternDatabaseHeuristic.loadOrGenerate(Paths.get("pdb-" + partition + ".bin"),
+                    PatternDatabaseHeuristic.partition(partition), PatternDatabaseHeuristic.printProgress(System.out));
+        }
+        return patternDatabaseHeuristic;
+    }
+
     private void changeHeuristic(Heuristic heuristic) {
         aStarSolver.setHeuristic(heuristic);
         System.out.printf("Using \"%s\" heuristic\n", heuristic.getName());
@@ -196,7 +238,23 @@ public class PuzzleSolver {
         return aStarSolver.getHeuristic().getName();
     }
     
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0) { // command line modes, see USAGE of commands
+            switch (args[0]) {
+                case "--generate":
+                    GenerateCommand.run(args);
+                    break;
+                case "--serve":
+                    ServeCommand.run(args);
+                    break;
+                case "--load":
+                    LoadCommand.run(args);
+                    break;
+                default:
+                    BatchCommand.run(args);
+            }
+            return;
+        }
         System.out.println("15-puzzle solver, using A* algorithm");
         System.out.printf("Algorithm currenly uses \"%s\" heuristic (changeable)\n", ManhattanDistanceHeuristic.HEURISTIC_NAME);
         System.out.println();
@@ -0,0 +1,140 @@
+package puzzle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import solver.CachingSolver;
+import solver.MultiSizeSolver;
+import solver.SearchBudget;
+import solver.SolutionCache;
+import solver.Solver;
+import solver.batch.SolveServer;
+import solver.heuristics.Heuristic;
+
+/**
+ *
+ * Command line server mode: solves puzzles sent over local TCP connections (see {@link SolveServer}) until stopped
+ *
+ * Heuristic is loaded once and shared by all workers, algorithm and heuristic options are the same as in
+ *      {@link BatchCommand}. Server listens on loopback address, unless --bind gives another one.
+ *
+ * @author Marius
+ *
+ */
+public class ServeCommand {
+
+    public static final String USAGE = "Usage: --serve <port> [--bind ADDRESS] [--threads N] [--queue N] [--batch N]"
+            + " [--algorithm astar|idastar|parallel|bidirectional|anytime] [--heuristic wrong|manhattan|linear|walking|pdb]"
+            + " [--perimeter DEPTH] [--max-nodes N] [--max-memory MB] [--timeout MS] [--cache PUZZLES]";
+
+    private int port;
+    private String bind = "127.0.0.1";
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 4096;
+    private int batchSize = 32;
+    private String algorithm = "astar";
+    private String heuristicName = "manhattan";
+    private int perimeterDepth = -1;
+    private long maxNodes = Long.MAX_VALUE;
+    private long maxMemory = Long.MAX_VALUE;
+    private long timeoutMillis = -1;
+    private int cacheCapacity = -1;
+
+    /**
+     * @param args - command line arguments, starting with --serve
+     */
+    public static void run(String[] args) throws IOException {
+        ServeCommand command = new ServeCommand();
+        if (!command.parse(args)) {
+            System.out.println(USAGE);
+            return;
+        }
+        command.run();
+    }
+
+    private boolean parse(String[] args) {
+        if (args.length < 2 || !"--serve".equals(args[0])) {
+            return false;
+        }
+        port = Integer.parseInt(args[1]);
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--bind":
+                    bind = args[++i];
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--queue":
+                    queueCapacity = Integer.parseInt(args[++i]);
+                    break;
+                case "--batch":
+                    batchSize = Integer.parseInt(args[++i]);
+                    break;
+                case "--algorithm":
+                    algorithm = args[++i];
+                    break;
+                case "--heuristic":
+                    heuristicName = args[++i];
+                    break;
+                case "--perimeter":
+                    perimeterDepth = Integer.parseInt(args[++i]);
+                    break;
+                case "--max-nodes":
+                    maxNodes = Long.parseLong(args[++i]);
+                    break;
+                case "--max-memory":
+                    maxMemory = Long.parseLong(args[++i]) << 20;
+                    break;
+                case "--timeout":
+                    timeoutMillis = Long.parseLong(args[++i]);
+                    break;
+                case "--cache":
+                    cacheCapacity = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private void run() throws IOException {
+        Heuristic heuristic = perimeterDepth < 0 ? BatchCommand.createHeuristic(heuristicName) // heuristics are stateless, so all workers share one
+                : BatchCommand.withPerimeter(BatchCommand.createHeuristic(heuristicName), perimeterDepth);
+        PuzzleService puzzleService = new PuzzleService();
+        SolutionCache cache = cacheCapacity < 0 ? null : new SolutionCache(cacheCapacity);
+        Supplier<Solver> solverFactory = () -> {
+            Solver solver = new MultiSizeSolver(puzzleService, BatchCommand.createSolver(algorithm, puzzleService, heuristic));
+            if (cache != null) {
+                solver = new CachingSolver(solver, cache);
+            }
+            solver.setVerbose(false);
+            return solver;
+        };
+        SolveServer server = new SolveServer(new InetSocketAddress(bind, port), solverFactory, threads, queueCapacity, batchSize);
+        if (maxNodes != Long.MAX_VALUE || maxMemory != Long.MAX_VALUE) {
+            server.setBudget(new SearchBudget(maxNodes, maxMemory));
+        }
+        if (timeoutMillis > 0) {
+            server.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            System.err.println(server);
+            if (cache != null) {
+                System.err.println(cache);
+            }
+        }));
+        server.start();
+        System.err.printf("Listening on %s with %d workers\n", server.getAddress(), threads);
+    }
+
+}
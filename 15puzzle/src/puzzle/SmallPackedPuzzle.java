@@ -0,0 +1,101 @@
+package puzzle;
+
+import java.util.List;
+
+/**
+ *
+ * Compact 3x3 puzzle board state: cells are packed as 4 bit nibbles into one <code>int</code>
+ *
+ * 9 nibbles don't fit 32 bits, so only cells 0 - 7 are stored (cell i in bits [4 * i, 4 * i + 3]). Value of the last
+ *      cell is the only one missing, so it's restored by xor of stored values and xor of all values (0 ^ 1 ^ ... ^ 8 = 8).
+ * Like {@link PackedPuzzle}, static methods work on packed values without creating objects.
+ *
+ * @author Marius
+ *
+ */
+public final class SmallPackedPuzzle {
+    public static final int EDGE = 3;
+    public static final int CELLS = EDGE * EDGE;
+    public static final int SOLVED = 0x87654321;
+
+    private static final int STORED_CELLS = CELLS - 1;
+    private static final int VALUES_XOR = 8;
+    private static final int ONES = 0x11111111;
+    private static final int HIGHS = 0x88888888;
+
+    private SmallPackedPuzzle() {
+    }
+
+    /**
+     * @param values - puzzle values, collected from left to right, top to bottom
+     * @return packed puzzle state
+     */
+    public static int pack(List<Integer> values) {
+        int cells = 0;
+        for (int i = 0; i < STORED_CELLS; i++) {
+            cells |= values.get(i) << (i << 2);
+        }
+        return cells;
+    }
+
+    public static int getCell(int cells, int index) {
+        return index < STORED_CELLS ? (cells >>> (index << 2)) & 0xF : lastCell(cells);
+    }
+
+    /**
+     * Finds cell index the same way as {@link PackedPuzzle#indexOf}, value missing from stored cells is in the last one
+     */
+    public static int indexOf(int cells, int value) {
+        int x = cells ^ (value * ONES);
+        int zeros = (x - ONES) & ~x & HIGHS;
+        return Integer.numberOfTrailingZeros(zeros) >>> 2; // 32 >>> 2 is index of the last cell
+    }
+
+    public static int emptyIndex(int cells) {
+        return indexOf(cells, 0);
+    }
+
+    /**
+     * Bits of the last cell fall outside <code>int</code>, so move to or from it only changes the other cell
+     * @param cells - current state
+     * @param emptyIndex - index of empty cell in current state
+     * @param tileIndex - index of cell to put in empty space
+     * @return state with the move applied
+     */
+    public static int move(int cells, int emptyIndex, int tileIndex) {
+        long tile = getCell(cells, tileIndex);
+        return (int) (((cells & 0xFFFFFFFFL) | (tile << (emptyIndex << 2))) & ~(0xFL << (tileIndex << 2)));
+    }
+
+    /**
+     * Spreads all 32 bits of state (finalizer of 32 bit MurmurHash3)
+     */
+    public static int hash(int cells) {
+        int h = cells;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    public static int row(int index) {
+        return index / EDGE;
+    }
+
+    public static int column(int index) {
+        return index % EDGE;
+    }
+
+    public static Puzzle toPuzzle(int cells) {
+        return new Puzzle(BoardSize.EIGHT, cells, emptyIndex(cells));
+    }
+
+    private static int lastCell(int cells) {
+        int x = cells ^ (cells >>> 16);
+        x ^= x >>> 8;
+        x ^= x >>> 4;
+        return (x & 0xF) ^ VALUES_XOR;
+    }
+}
@@ -0,0 +1,108 @@
+package puzzle;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ *
+ * Draws puzzles as text tables into one buffer, which is written out only when it fills up or is flushed
+ *
+ * {@link MoveSequence} is drawn by moving one board through its moves, so no puzzle is created per move.
+ *
+ * @author Marius
+ *
+ */
+public class SolutionRenderer {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String[] SEPARATORS = createSeparators();
+
+    private final Writer out;
+    private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE + 1024);
+
+    /**
+     * @param out - writer to draw to, it's flushed, but not closed
+     */
+    public SolutionRenderer(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Draws all puzzles of given solution
+     */
+    public void render(List<Puzzle> solution) throws IOException {
+        if (!(solution instanceof MoveSequence)) {
+            for (Puzzle puzzle : solution) {
+                render(puzzle);
+            }
+            return;
+        }
+        MoveSequence moves = (MoveSequence) solution;
+        Puzzle board = moves.getStart();
+        render(board);
+        for (int i = 0; i < moves.getMoveCount(); i++) {
+            board.move(moves.tileIndex(board, i));
+            render(board);
+        }
+    }
+
+    public void render(Puzzle puzzle) throws IOException {
+        appendPuzzle(buffer, puzzle);
+        if (buffer.length() >= BUFFER_SIZE) {
+            write();
+        }
+    }
+
+    /**
+     * Writes buffered text and flushes writer
+     */
+    public void flush() throws IOException {
+        write();
+        out.flush();
+    }
+
+    private void write() throws IOException {
+        out.append(buffer);
+        buffer.setLength(0);
+    }
+
+    /**
+     * Appends table of given puzzle cells, empty cell is drawn as "__", table is followed by empty line
+     */
+    public static void appendPuzzle(StringBuilder result, Puzzle puzzle) {
+        int edge = puzzle.getSize().getEdge();
+        String separator = SEPARATORS[puzzle.getSize().ordinal()];
+        result.append(separator).append('\n');
+        for (int i = 0; i < edge; i++) {
+            result.append("| ");
+            for (int j = 0; j < edge; j++) {
+                int n = puzzle.getCell(i, j);
+                if (n > 9) {
+                    result.append(n);
+                } else if (n > 0) {
+                    result.append(' ').append((char) ('0' + n));
+                } else {
+                    result.append("__");
+                }
+                result.append(" | ");
+            }
+            result.append('\n').append(separator).append('\n');
+        }
+        result.append('\n');
+    }
+
+    private static String[] createSeparators() {
+        BoardSize[] sizes = BoardSize.values();
+        String[] separators = new String[sizes.length];
+        for (BoardSize size : sizes) {
+            StringBuilder separator = new StringBuilder("-");
+            for (int j = 0; j < size.getEdge(); j++) {
+                separator.append("-----");
+            }
+            separators[size.ordinal()] = separator.toString();
+        }
+        return separators;
+    }
+
+}
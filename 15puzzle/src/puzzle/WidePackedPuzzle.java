@@ -0,0 +1,170 @@
+package puzzle;
+
+import java.util.List;
+
+/**
+ *
+ * Compact 5x5 puzzle board state: cells are packed as 5 bit fields into two <code>long</code>s
+ *
+ * 25 fields don't fit 128 bits with room to spare, so only cells 0 - 23 are stored, 12 per <code>long</code>:
+ *      cell i in bits [5 * i, 5 * i + 4] of low word, cell 12 + i in the same bits of high word. Value of the last cell
+ *      is restored by xor of stored values and xor of all values (0 ^ 1 ^ ... ^ 24 = 24), as in {@link SmallPackedPuzzle}.
+ * Instance methods wrap one mutable state for in-place moves, static methods work on both words without creating objects.
+ *
+ * @author Marius
+ *
+ */
+public final class WidePackedPuzzle {
+    public static final int EDGE = 5;
+    public static final int CELLS = EDGE * EDGE;
+    public static final long SOLVED_LOW = solvedWord(1);
+    public static final long SOLVED_HIGH = solvedWord(13);
+
+    private static final int WORD_CELLS = 12;
+    private static final int STORED_CELLS = 2 * WORD_CELLS;
+    private static final int VALUES_XOR = 24;
+    private static final long FIELD = 0x1F;
+    private static final long ONES = 0x0084210842108421L; // lowest bit of every stored field
+    private static final long HIGHS = ONES << 4;
+
+    private long low;
+    private long high;
+    private int emptyIndex;
+
+    public WidePackedPuzzle(long low, long high) {
+        this(low, high, emptyIndex(low, high));
+    }
+
+    public WidePackedPuzzle(long low, long high, int emptyIndex) {
+        this.low = low;
+        this.high = high;
+        this.emptyIndex = emptyIndex;
+    }
+
+    /**
+     * @param values - puzzle values, collected from left to right, top to bottom
+     */
+    public WidePackedPuzzle(List<Integer> values) {
+        for (int i = 0; i < WORD_CELLS; i++) {
+            low |= (long) values.get(i) << (5 * i);
+            high |= (long) values.get(WORD_CELLS + i) << (5 * i);
+        }
+        emptyIndex = emptyIndex(low, high);
+    }
+
+    public WidePackedPuzzle(Puzzle puzzle) {
+        this(puzzle.getCells(), puzzle.getHighCells(), puzzle.getEmptyIndex());
+    }
+
+    /**
+     * Makes a move with given cell (swaps given with empty)
+     * @param tileIndex - index of cell to put in empty space
+     */
+    public void move(int tileIndex) {
+        long tile = getCell(low, high, tileIndex);
+        if (emptyIndex < WORD_CELLS) {
+            low |= tile << (5 * emptyIndex);
+        } else if (emptyIndex < STORED_CELLS) {
+            high |= tile << (5 * (emptyIndex - WORD_CELLS));
+        }
+        if (tileIndex < WORD_CELLS) {
+            low &= ~(FIELD << (5 * tileIndex));
+        } else if (tileIndex < STORED_CELLS) {
+            high &= ~(FIELD << (5 * (tileIndex - WORD_CELLS)));
+        }
+        emptyIndex = tileIndex;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public int getEmptyIndex() {
+        return emptyIndex;
+    }
+
+    public int getCell(int index) {
+        return getCell(low, high, index);
+    }
+
+    public boolean isSolved() {
+        return low == SOLVED_LOW && high == SOLVED_HIGH;
+    }
+
+    public Puzzle toPuzzle() {
+        return new WidePuzzle(low, high, emptyIndex);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof WidePackedPuzzle && ((WidePackedPuzzle) o).low == low && ((WidePackedPuzzle) o).high == high;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash(low, high);
+    }
+
+    public static int getCell(long low, long high, int index) {
+        if (index < WORD_CELLS) {
+            return (int) (low >>> (5 * index) & FIELD);
+        }
+        if (index < STORED_CELLS) {
+            return (int) (high >>> (5 * (index - WORD_CELLS)) & FIELD);
+        }
+        long x = low ^ high; // fields of both words are aligned, so they are folded to one field
+        x ^= x >>> 30;
+        x ^= x >>> 15;
+        x ^= (x >>> 5) ^ (x >>> 10);
+        return (int) (x & FIELD) ^ VALUES_XOR;
+    }
+
+    /**
+     * Finds cell index the same way as {@link PackedPuzzle#indexOf}, in each word separately
+     * @return index of given value
+     */
+    public static int indexOf(long low, long high, int value) {
+        int index = indexOf(low, value);
+        return index < WORD_CELLS ? index : WORD_CELLS + indexOf(high, value);
+    }
+
+    public static int emptyIndex(long low, long high) {
+        return indexOf(low, high, 0);
+    }
+
+    /**
+     * Spreads both words into 32 bit hash, for high word 0 it's the same as {@link PackedPuzzle#hash}
+     */
+    public static int hash(long low, long high) {
+        return PackedPuzzle.hash(low ^ high * 0x9e3779b97f4a7c15L);
+    }
+
+    public static int row(int index) {
+        return index / EDGE;
+    }
+
+    public static int column(int index) {
+        return index % EDGE;
+    }
+
+    /**
+     * @return index of value inside word, or {@link #WORD_CELLS} if word doesn't contain it
+     */
+    private static int indexOf(long word, int value) {
+        long x = word ^ (value * ONES);
+        long zeros = (x - ONES) & ~x & HIGHS;
+        return Math.min(Long.numberOfTrailingZeros(zeros) / 5, WORD_CELLS);
+    }
+
+    private static long solvedWord(int firstValue) {
+        long word = 0;
+        for (int i = 0; i < WORD_CELLS; i++) {
+            word |= (long) (firstValue + i) << (5 * i); // empty cell is the last one, which is not stored
+        }
+        return word;
+    }
+}
@@ -0,0 +1,57 @@
+package puzzle;
+
+/**
+ *
+ * View of 5x5 puzzle, keeps high word of {@link WidePackedPuzzle}, which doesn't fit {@link Puzzle} fields,
+ *      and Zobrist key, which is updated by every move, as hashing both words again would cost more
+ *
+ * @author Marius
+ *
+ */
+final class WidePuzzle extends Puzzle {
+
+    private long highCells;
+    private long key;
+
+    WidePuzzle(long low, long high, int emptyIndex) {
+        super(BoardSize.TWENTY_FOUR, low, emptyIndex);
+        this.highCells = high;
+        this.key = ZobristHash.of(BoardSize.TWENTY_FOUR, low, high);
+    }
+
+    @Override
+    public Puzzle copy() {
+        return new WidePuzzle(getCells(), highCells, getEmptyIndex());
+    }
+
+    @Override
+    void move(int tileIndex) {
+        int tile = WidePackedPuzzle.getCell(getCells(), highCells, tileIndex);
+        key = ZobristHash.move(key, tile, getEmptyIndex(), tileIndex);
+        WidePackedPuzzle board = new WidePackedPuzzle(getCells(), highCells, getEmptyIndex());
+        board.move(tileIndex);
+        highCells = board.getHigh();
+        setState(board.getLow(), board.getEmptyIndex());
+    }
+
+    @Override
+    public long getHighCells() {
+        return highCells;
+    }
+
+    @Override
+    public long getZobristKey() {
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && ((WidePuzzle) o).highCells == highCells;
+    }
+
+    @Override
+    public int hashCode() {
+        return ZobristHash.hash(key);
+    }
+
+}
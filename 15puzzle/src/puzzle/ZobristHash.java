@@ -0,0 +1,89 @@
+package puzzle;
+
+import java.util.SplittableRandom;
+
+/**
+ *
+ * Zobrist hashing: key of board is xor of random 64 bit numbers, one for every (value, cell) pair
+ *
+ * Move changes only two pairs, so key of the next board is two xors away (see {@link #move}) instead of hashing
+ *      all cells again. Numbers of empty cell are 0, its place is defined by the other values anyway.
+ * Numbers are generated from fixed seed, so keys are the same on every run. One table serves all board sizes.
+ *
+ * @author Marius
+ *
+ */
+public final class ZobristHash {
+
+    private static final int MAX_CELLS = BoardSize.TWENTY_FOUR.getCells();
+    private static final long SEED = 0x15F0_77E5_2B1DL;
+    private static final long[] NUMBERS = createNumbers(); // [value * MAX_CELLS + cell]
+
+    private ZobristHash() {
+    }
+
+    /**
+     * @param cells - packed 15-puzzle state, see {@link PackedPuzzle}
+     * @return key of state
+     */
+    public static long of(long cells) {
+        long key = 0;
+        for (int i = 0; i < PackedPuzzle.CELLS; i++) {
+            key ^= NUMBERS[(int) (cells >>> (i << 2) & 0xF) * MAX_CELLS + i];
+        }
+        return key;
+    }
+
+    /**
+     * @param cells - packed state of given size, low word for 5x5 board
+     * @param highCells - high word of 5x5 board, ignored for other sizes
+     * @return key of state
+     */
+    public static long of(BoardSize size, long cells, long highCells) {
+        switch (size) {
+            case EIGHT:
+                long key = 0;
+                for (int i = 0; i < SmallPackedPuzzle.CELLS; i++) {
+                    key ^= NUMBERS[SmallPackedPuzzle.getCell((int) cells, i) * MAX_CELLS + i];
+                }
+                return key;
+            case TWENTY_FOUR:
+                key = 0;
+                for (int i = 0; i < WidePackedPuzzle.CELLS; i++) {
+                    key ^= NUMBERS[WidePackedPuzzle.getCell(cells, highCells, i) * MAX_CELLS + i];
+                }
+                return key;
+            default:
+                return of(cells);
+        }
+    }
+
+    /**
+     * @param key - key of current state
+     * @param tile - value of moved cell
+     * @param emptyIndex - index of empty cell in current state
+     * @param tileIndex - index of moved cell in current state
+     * @return key of state with the move applied, of any board size
+     */
+    public static long move(long key, int tile, int emptyIndex, int tileIndex) {
+        int row = tile * MAX_CELLS;
+        return key ^ NUMBERS[row + tileIndex] ^ NUMBERS[row + emptyIndex];
+    }
+
+    /**
+     * @return low 32 bits of key, which are as random as the whole key
+     */
+    public static int hash(long key) {
+        return (int) key;
+    }
+
+    private static long[] createNumbers() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        long[] numbers = new long[MAX_CELLS * MAX_CELLS];
+        for (int i = MAX_CELLS; i < numbers.length; i++) { // value 0 (empty cell) keeps zeros
+            numbers[i] = random.nextLong();
+        }
+        return numbers;
+    }
+
+}
@@ -1,115 +1,209 @@
 package solver;
 
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.PriorityQueue;
-
+import puzzle.BoardSize;
+import puzzle.MoveSequence;
+import puzzle.PackedPuzzle;
 import puzzle.Puzzle;
 import puzzle.PuzzleService;
 import solver.heuristics.Heuristic;
+import solver.heuristics.PerimeterDatabase;
+import solver.heuristics.PerimeterHeuristic;
 
 /**
  * 
  * A* search algorithm for finding 15-puzzle solution
  * 
+ * With {@link PerimeterHeuristic} search stops at the first expanded puzzle inside perimeter, its lifted heuristic
+ *      value is exact distance, so solution is finished by moves from perimeter database.
+ * 
  * @author Marius
  *
  */
-public class AStarSolver {
+public class AStarSolver implements Solver {
 
     private PuzzleService puzzleService;
     private Heuristic heuristic;
+    private int nodeTableCapacity;
+    private float nodeTableLoadFactor;
+    private OpenListStrategy openListStrategy = OpenListStrategy.BUCKETS;
+    private SearchListener listener = new ConsoleSearchListener();
+    private SolverStats stats = new SolverStats();
+    private final long[] adjacentStates = new long[4];
 
     public AStarSolver(PuzzleService puzzleService, Heuristic heuristic) {
+        this(puzzleService, heuristic, NodeTable.DEFAULT_CAPACITY, NodeTable.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param nodeTableCapacity - initial amount of puzzles node table can hold before growing
+     * @param nodeTableLoadFactor - part of node table slots which can be filled before it grows
+     */
+    public AStarSolver(PuzzleService puzzleService, Heuristic heuristic, int nodeTableCapacity, float nodeTableLoadFactor) {
         this.puzzleService = puzzleService;
         this.heuristic = heuristic;
+        this.nodeTableCapacity = nodeTableCapacity;
+        this.nodeTableLoadFactor = nodeTableLoadFactor;
     }
 
     /**
      * @param puzzle - puzzle to solve
+     * @param budget - limits of search, node table stops growing at its memory limit
      * 
-     * @return list of moves to solve given puzzle, or <code>null</code> if it couldn't solve it
+     * @return shortest solution, or no solution if budget ran out first
      */
-    public List<Puzzle> solve(Puzzle puzzle) {
-        HashMap<Puzzle, Puzzle> puzzleMoves = new HashMap<Puzzle, Puzzle>(); // map of puzzles: <currentPuzzle,puzzleAfterMove>
-        HashMap<Puzzle, Integer> solutionTreeDepth = new HashMap<Puzzle, Integer>(); // puzzles with values of how many moves were made
-        HashMap<Puzzle, Integer> heuristicScores = new HashMap<Puzzle, Integer>(); // puzzles with values of heuristic score
-        
-        /**
-         * Comparator is used in priority queue to determine which puzzle are closer to being solved
-         */
-        Comparator<Puzzle> comparator = new Comparator<Puzzle>() {
-            @Override
-            public int compare(Puzzle a, Puzzle b) {
-                return heuristicScores.get(a) - heuristicScores.get(b);
-            }
-        };
-        
-        PriorityQueue<Puzzle> puzzlesToSolve = new PriorityQueue<Puzzle>(25000, comparator); // queue of original puzzle copies for solving
+    @Override
+    public SolveResult solve(Puzzle puzzle, SearchBudget budget) {
+        if (puzzle.getSize() != BoardSize.FIFTEEN) {
+            throw new IllegalArgumentException("Only 15-puzzle is supported, given " + puzzle.getSize().getName());
+        }
+        stats = new SolverStats();
+        stats.start();
+        if (listener != null) {
+            listener.searchStarted(puzzle);
+        }
+        SolveResult result = puzzleService.isSolvable(puzzle.getCells()) ? search(puzzle, budget, stats) : SolveResult.unsolvable(stats);
+        stats.finish(result.getSolution());
+        if (listener != null) {
+            listener.searchFinished(stats);
+        }
+        return result;
+    }
+
+    private SolveResult search(Puzzle puzzle, SearchBudget budget, SolverStats stats) {
+        NodeTable nodes = new NodeTable(nodeTableCapacity, nodeTableLoadFactor); // puzzles with parent move, depth and heuristic score
+        OpenList puzzlesToSolve = openListStrategy.create(nodes); // queue of packed puzzles for solving
+
+        // perimeter heuristic lifts values of its inner heuristic, which are still updated by deltas
+        PerimeterDatabase perimeter = heuristic instanceof PerimeterHeuristic ? ((PerimeterHeuristic) heuristic).getPerimeter() : null;
+        Heuristic moveHeuristic = perimeter != null ? ((PerimeterHeuristic) heuristic).getHeuristic() : heuristic;
 
         // initialization of required structures with given puzzle
-        puzzleMoves.put(puzzle, null);
-        solutionTreeDepth.put(puzzle, 0);
-        heuristicScores.put(puzzle, getHeuristicValue(puzzle));
-        puzzlesToSolve.add(puzzle);
-        int index = 0;
+        long start = puzzle.getCells();
+        int startScore = getHeuristicValue(start);
+        nodes.put(start, NodeTable.NO_PARENT, 0, startScore);
+        puzzlesToSolve.add(start, 0, startScore);
         
-        // A* algorithm core: makes all possible moves from given puzzle and adds them to priority queue
-        // priority queue is sorted by heuristic value, which basically calculates how close puzzle is to solution
+        // A* algorithm core: makes all possible moves from given puzzle and adds them to open list
+        // open list is sorted by heuristic value, which basically calculates how close puzzle is to solution
         // at every iteration algorithm takes puzzle with best possibility to be solved earliest (because it's first in queue)
-        while (puzzlesToSolve.size() > 0) {
-            Puzzle bestCandidate = puzzlesToSolve.remove();
-            index++;
-            if (index % 25000 == 0) {
-                System.out.printf("Solving... Considered %,d moves.\n", index);
+        while (!puzzlesToSolve.isEmpty()) {
+            long bestCandidate = puzzlesToSolve.remove();
+            int slot = nodes.indexOf(bestCandidate);
+            if (nodes.isClosed(slot)) { // outdated copy of puzzle, which was later reached with fewer moves
+                continue;
+            }
+            nodes.close(slot);
+            stats.expandedNodes++;
+            stats.scoreBound = nodes.getScore(slot);
+            if (listener != null && stats.expandedNodes % SearchListener.PROGRESS_INTERVAL == 0) {
+                stats.updateNodeTableSize(nodes.size());
+                listener.searchProgress(stats);
             }
-            if (isSolved(bestCandidate)) {
-                System.out.printf("Solution considered %d moves\n", index);
-                return buildResult(puzzleMoves, bestCandidate);
+            int heuristicValue = nodes.getScore(slot) - nodes.getDepth(slot);
+            if (isSolved(bestCandidate) || perimeter != null && heuristicValue <= perimeter.getDepth()) { // exact value inside perimeter
+                stats.updateNodeTableSize(nodes.size());
+                return SolveResult.solved(buildResult(puzzle, nodes, bestCandidate, perimeter), true, stats);
             }
-            // adding to queue all valid unique moves from current puzzle and updating all other required structures 
-            for (Puzzle moveAfter : puzzleService.getAdjacentPuzzles(bestCandidate)) {
-                if (!puzzleMoves.containsKey(moveAfter)) {
-                    puzzleMoves.put(moveAfter, bestCandidate);
-                    solutionTreeDepth.put(moveAfter, solutionTreeDepth.get(bestCandidate) + 1);
-                    int heuristicValue = getHeuristicValue(moveAfter);
-                    heuristicScores.put(moveAfter, solutionTreeDepth.get(moveAfter) + heuristicValue);
-                    puzzlesToSolve.add(moveAfter);
+            if (budget.isExceeded(stats.expandedNodes, nodes.size())) {
+                stats.updateNodeTableSize(nodes.size());
+                return SolveResult.stopped(budget, null, stats);
+            }
+            // adding to queue all valid moves from current puzzle, which are new or reached with fewer moves than before
+            // (move back to parent never is, so it isn't made)
+            // heuristic value of every next puzzle is updated from current one by the moved cell only
+            int emptyIndex = PackedPuzzle.emptyIndex(bestCandidate);
+            if (perimeter != null && heuristicValue <= perimeter.getDepth() + 2) { // value might be lifted
+                heuristicValue = moveHeuristic.heuristicValue(bestCandidate);
+            }
+            int depth = nodes.getDepth(slot) + 1;
+            int adjacent = puzzleService.getAdjacentStates(bestCandidate, nodes.getParentEmptyIndex(slot), adjacentStates);
+            for (int i = 0; i < adjacent; i++) {
+                long moveAfter = adjacentStates[i];
+                int afterSlot = nodes.indexOf(moveAfter);
+                stats.generatedNodes++;
+                if (afterSlot < 0) {
+                    int from = PackedPuzzle.emptyIndex(moveAfter);
+                    int movedTile = PackedPuzzle.getCell(bestCandidate, from);
+                    int valueAfter = heuristicValue + stats.heuristicDelta(moveHeuristic, bestCandidate, movedTile, from, emptyIndex);
+                    int score = depth + (perimeter != null ? perimeter.lift(moveAfter, valueAfter) : valueAfter);
+                    nodes.put(moveAfter, emptyIndex, depth, score);
+                    puzzlesToSolve.add(moveAfter, depth, score);
+                } else {
+                    stats.duplicateNodes++;
+                    if (depth < nodes.getDepth(afterSlot)) {
+                        // expanded puzzle can be reached with fewer moves only if heuristic is inconsistent (pattern database)
+                        int score = nodes.getScore(afterSlot) - nodes.getDepth(afterSlot) + depth;
+                        nodes.reopen(afterSlot);
+                        nodes.put(moveAfter, emptyIndex, depth, score);
+                        puzzlesToSolve.add(moveAfter, depth, score);
+                    }
                 }
             }
+            stats.updateOpenSize(puzzlesToSolve.size());
         }
-        return null;
+        stats.updateNodeTableSize(nodes.size());
+        return SolveResult.unsolvable(stats);
     }
     
     /**
-     * Method backtraces moves of how puzzle was solved and returns it as LinkedList
+     * Method backtraces moves of how puzzle was solved and returns them as {@link MoveSequence}
+     * @param perimeter - database, which finishes solution from final move, or <code>null</code>
      */
-    private List<Puzzle> buildResult(HashMap<Puzzle, Puzzle> puzzleMoves, Puzzle finalMove) {
-        LinkedList<Puzzle> result = new LinkedList<Puzzle>();
-        Puzzle moveBefore = finalMove;
-        while (moveBefore != null) {
-            result.addFirst(moveBefore);
-            moveBefore = puzzleMoves.get(moveBefore);
+    private MoveSequence buildResult(Puzzle start, NodeTable nodes, long finalMove, PerimeterDatabase perimeter) {
+        MoveSequence.Builder result = new MoveSequence.Builder(start);
+        long moveBefore = finalMove;
+        while (moveBefore != 0) {
+            result.addFirst(PackedPuzzle.emptyIndex(moveBefore));
+            moveBefore = nodes.getParent(nodes.indexOf(moveBefore));
         }
-        return result;
+        if (perimeter != null) {
+            perimeter.appendPath(finalMove, result);
+        }
+        return result.build();
     }
 
     public boolean isSolved(Puzzle p) {
         return Puzzle.SOLVED.equals(p);
     }
 
+    public boolean isSolved(long cells) {
+        return cells == PackedPuzzle.SOLVED;
+    }
+
     public int getHeuristicValue(Puzzle p) {
         return heuristic.heuristicValue(p);
     }
 
+    public int getHeuristicValue(long cells) {
+        return heuristic.heuristicValue(cells);
+    }
+
+    @Override
     public void setHeuristic(Heuristic heuristic) {
         this.heuristic = heuristic;
     }
 
+    @Override
     public Heuristic getHeuristic() {
         return heuristic;
     }
 
+    @Override
+    public void setSearchListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    public void setOpenListStrategy(OpenListStrategy openListStrategy) {
+        this.openListStrategy = openListStrategy;
+    }
+
+    public OpenListStrategy getOpenListStrategy() {
+        return openListStrategy;
+    }
+
 }
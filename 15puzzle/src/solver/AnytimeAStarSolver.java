@@ -0,0 +1,230 @@
+package solver;
+
+import puzzle.BoardSize;
+import puzzle.MoveSequence;
+import puzzle.PackedPuzzle;
+import puzzle.Puzzle;
+import puzzle.PuzzleService;
+import solver.heuristics.Heuristic;
+
+/**
+ *
+ * Anytime weighted A* search algorithm for finding 15-puzzle solution within search budget
+ *
+ * Runs weighted A* searches (puzzles ordered by g + w * h) with weight decreasing from initial one to 1.
+ *      High weight finds long solution fast, every next search looks only for shorter one than best found so far:
+ *      puzzles with heuristic score (g + h) not lower than its length are dropped. Every search starts from scratch,
+ *      which frees memory of previous one and in practice is not slower than reusing it.
+ * When budget runs out, best solution found so far is returned. Solution is proven optimal when a search
+ *      finishes without finding shorter one, or when search with weight 1 (plain A*) finds it.
+ *
+ * Source - https://www.aaai.org/ocs/index.php/ICAPS/ICAPS10/paper/view/1426 (Richter, Thayer, Ruml -
+ *      The Joy of Forgetting: Faster Anytime Search via Restarting)
+ *
+ * @author Marius
+ *
+ */
+public class AnytimeAStarSolver implements Solver {
+
+    public static final double DEFAULT_INITIAL_WEIGHT = 3;
+    public static final double DEFAULT_WEIGHT_STEP = 0.5;
+
+    private static final int PRIORITY_SCALE = 4; // open list needs integer priority, so g + w * h is kept with 2 fraction bits
+
+    private PuzzleService puzzleService;
+    private Heuristic heuristic;
+    private double initialWeight = DEFAULT_INITIAL_WEIGHT;
+    private double weightStep = DEFAULT_WEIGHT_STEP;
+    private SearchListener listener = new ConsoleSearchListener();
+    private SolverStats stats = new SolverStats();
+    private final long[] adjacentStates = new long[4];
+
+    public AnytimeAStarSolver(PuzzleService puzzleService, Heuristic heuristic) {
+        this.puzzleService = puzzleService;
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * @param puzzle - puzzle to solve
+     * @param budget - limits of search, node table stops growing at its memory limit
+     *
+     * @return shortest solution, or the best solution found (if any) if budget ran out before it was proven optimal
+     */
+    @Override
+    public SolveResult solve(Puzzle puzzle, SearchBudget budget) {
+        if (puzzle.getSize() != BoardSize.FIFTEEN) {
+            throw new IllegalArgumentException("Only 15-puzzle is supported, given " + puzzle.getSize().getName());
+        }
+        stats = new SolverStats();
+        stats.start();
+        if (listener != null) {
+            listener.searchStarted(puzzle);
+        }
+        SolveResult result = puzzleService.isSolvable(puzzle.getCells()) ? iterate(puzzle.getCells(), budget)
+                : SolveResult.unsolvable(stats);
+        stats.finish(result.getSolution());
+        if (listener != null) {
+            listener.searchFinished(stats);
+        }
+        return result;
+    }
+
+    /**
+     * Runs searches with decreasing weight until budget runs out or solution is proven optimal
+     */
+    private SolveResult iterate(long start, SearchBudget budget) {
+        MoveSequence best = null;
+        double weight = Math.max(1, initialWeight);
+        while (true) {
+            NodeTable nodes = new NodeTable();
+            Outcome outcome = search(start, weight, best == null ? Integer.MAX_VALUE : best.getMoveCount(), budget, nodes);
+            if (outcome == Outcome.FOUND) {
+                best = buildResult(start, nodes);
+                if (listener != null) {
+                    listener.searchProgress(stats);
+                }
+            }
+            if (outcome == Outcome.EXCEEDED) {
+                return SolveResult.stopped(budget, best, stats);
+            }
+            if (outcome == Outcome.EXHAUSTED || weight == 1) { // nothing shorter exists, or plain A* found shortest
+                return best == null ? SolveResult.unsolvable(stats) : SolveResult.solved(best, true, stats);
+            }
+            weight = Math.max(1, weight - weightStep);
+        }
+    }
+
+    private enum Outcome {
+        FOUND, EXHAUSTED, EXCEEDED
+    }
+
+    /**
+     * Weighted A* search for solution shorter than given length
+     * @param nodes - empty node table, holds found solution when {@link Outcome#FOUND} is returned
+     */
+    private Outcome search(long start, double weight, int maxMoves, SearchBudget budget, NodeTable nodes) {
+        BucketOpenList open = new BucketOpenList();
+        int startHeuristic = heuristic.heuristicValue(start);
+        nodes.put(start, NodeTable.NO_PARENT, 0, startHeuristic);
+        open.add(start, 0, priority(0, startHeuristic, weight));
+        while (!open.isEmpty()) {
+            long state = open.remove();
+            int slot = nodes.indexOf(state);
+            if (nodes.isClosed(slot)) { // outdated copy of puzzle, which was later reached with fewer moves
+                continue;
+            }
+            if (nodes.getScore(slot) >= maxMoves) { // can't lead to shorter solution than best found
+                continue;
+            }
+            nodes.close(slot);
+            stats.expandedNodes++;
+            stats.scoreBound = nodes.getScore(slot);
+            if (listener != null && stats.expandedNodes % SearchListener.PROGRESS_INTERVAL == 0) {
+                stats.updateNodeTableSize(nodes.size());
+                listener.searchProgress(stats);
+            }
+            if (state == PackedPuzzle.SOLVED) {
+                stats.updateNodeTableSize(nodes.size());
+                return Outcome.FOUND;
+            }
+            if (budget.isExceeded(stats.expandedNodes, nodes.size())) {
+                stats.updateNodeTableSize(nodes.size());
+                return Outcome.EXCEEDED;
+            }
+            int emptyIndex = PackedPuzzle.emptyIndex(state);
+            int heuristicValue = nodes.getScore(slot) - nodes.getDepth(slot);
+            int depth = nodes.getDepth(slot) + 1;
+            int adjacent = puzzleService.getAdjacentStates(state, nodes.getParentEmptyIndex(slot), adjacentStates);
+            for (int i = 0; i < adjacent; i++) {
+                long moveAfter = adjacentStates[i];
+                int afterSlot = nodes.indexOf(moveAfter);
+                stats.generatedNodes++;
+                int heuristicAfter;
+                if (afterSlot < 0) {
+                    int from = PackedPuzzle.emptyIndex(moveAfter);
+                    int movedTile = PackedPuzzle.getCell(state, from);
+                    heuristicAfter = heuristicValue + stats.heuristicDelta(heuristic, state, movedTile, from, emptyIndex);
+                } else {
+                    stats.duplicateNodes++;
+                    if (depth >= nodes.getDepth(afterSlot)) {
+                        continue;
+                    }
+                    // weighted search closes puzzles before their shortest path is known, so they are reopened
+                    heuristicAfter = nodes.getScore(afterSlot) - nodes.getDepth(afterSlot);
+                    nodes.reopen(afterSlot);
+                }
+                if (depth + heuristicAfter >= maxMoves) {
+                    continue;
+                }
+                nodes.put(moveAfter, emptyIndex, depth, depth + heuristicAfter);
+                open.add(moveAfter, depth, priority(depth, heuristicAfter, weight));
+            }
+            stats.updateOpenSize(open.size());
+        }
+        stats.updateNodeTableSize(nodes.size());
+        return Outcome.EXHAUSTED;
+    }
+
+    private static int priority(int depth, int heuristicValue, double weight) {
+        return (int) Math.round((depth + weight * heuristicValue) * PRIORITY_SCALE);
+    }
+
+    /**
+     * Method backtraces moves from solved puzzle and returns them as {@link MoveSequence}
+     */
+    private MoveSequence buildResult(long start, NodeTable nodes) {
+        MoveSequence.Builder result = new MoveSequence.Builder(new Puzzle(start));
+        long moveBefore = PackedPuzzle.SOLVED;
+        while (moveBefore != 0) {
+            result.addFirst(PackedPuzzle.emptyIndex(moveBefore));
+            moveBefore = nodes.getParent(nodes.indexOf(moveBefore));
+        }
+        return result.build();
+    }
+
+    @Override
+    public void setHeuristic(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    @Override
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+
+    @Override
+    public void setSearchListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @param initialWeight - heuristic weight of first search, 1 or higher
+     */
+    public void setInitialWeight(double initialWeight) {
+        this.initialWeight = initialWeight;
+    }
+
+    public double getInitialWeight() {
+        return initialWeight;
+    }
+
+    /**
+     * @param weightStep - amount weight is lowered by after every search, positive
+     */
+    public void setWeightStep(double weightStep) {
+        if (!(weightStep > 0)) {
+            throw new IllegalArgumentException("Weight step must be positive: " + weightStep);
+        }
+        this.weightStep = weightStep;
+    }
+
+    public double getWeightStep() {
+        return weightStep;
+    }
+
+}
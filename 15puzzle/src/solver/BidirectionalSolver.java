@@ -0,0 +1,213 @@
+package solver;
+
+import puzzle.BoardSize;
+import puzzle.MoveSequence;
+import puzzle.PackedPuzzle;
+import puzzle.Puzzle;
+import puzzle.PuzzleService;
+import solver.heuristics.Heuristic;
+
+/**
+ *
+ * Bidirectional search algorithm (MM), which meets in the middle, for finding 15-puzzle solution
+ *
+ * One search goes forward from given puzzle to solved one, other goes backward from solved puzzle to given one,
+ *      using heuristic towards given puzzle (see {@link Heuristic#towards}). Puzzles are taken by priority
+ *      max(f, 2g), so neither search goes beyond half of solution length, and always from search with lower priority.
+ * When puzzle is generated, which other search has already reached, it's a candidate solution. Search stops when
+ *      best candidate is not longer than lowest priority of both searches: no shorter solution can be found anymore.
+ *
+ * Source - https://www.aaai.org/ocs/index.php/AAAI/AAAI16/paper/view/12320 (Holte, Felner, Sharon, Sturtevant -
+ *      Bidirectional Search That Is Guaranteed to Meet in the Middle)
+ *
+ * @author Marius
+ *
+ */
+public class BidirectionalSolver implements Solver {
+
+    private PuzzleService puzzleService;
+    private Heuristic heuristic;
+    private SearchListener listener = new ConsoleSearchListener();
+    private SolverStats stats = new SolverStats();
+
+    public BidirectionalSolver(PuzzleService puzzleService, Heuristic heuristic) {
+        this.puzzleService = puzzleService;
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * @param puzzle - puzzle to solve
+     *
+     * @param budget - limits of search, memory limit counts puzzles of both directions
+     *
+     * @return shortest solution, or no solution if budget ran out first
+     */
+    @Override
+    public SolveResult solve(Puzzle puzzle, SearchBudget budget) {
+        if (puzzle.getSize() != BoardSize.FIFTEEN) {
+            throw new IllegalArgumentException("Only 15-puzzle is supported, given " + puzzle.getSize().getName());
+        }
+        stats = new SolverStats();
+        stats.start();
+        if (listener != null) {
+            listener.searchStarted(puzzle);
+        }
+        SolveResult result = puzzleService.isSolvable(puzzle.getCells()) ? search(puzzle.getCells(), budget) : SolveResult.unsolvable(stats);
+        stats.finish(result.getSolution());
+        if (listener != null) {
+            listener.searchFinished(stats);
+        }
+        return result;
+    }
+
+    private SolveResult search(long start, SearchBudget budget) {
+        Direction forward = new Direction(heuristic, start, stats);
+        Direction backward = new Direction(heuristic.towards(start), PackedPuzzle.SOLVED, stats);
+        Meeting meeting = new Meeting();
+        if (start == PackedPuzzle.SOLVED) {
+            meeting.update(start, 0);
+        }
+        while (!forward.open.isEmpty() && !backward.open.isEmpty()) {
+            int forwardPriority = forward.open.getMinScore();
+            int backwardPriority = backward.open.getMinScore();
+            if (meeting.moves <= Math.min(forwardPriority, backwardPriority)) {
+                break;
+            }
+            if (budget.isExceeded(stats.expandedNodes, forward.nodes.size() + backward.nodes.size())) {
+                stats.updateNodeTableSize(forward.nodes.size() + backward.nodes.size());
+                return SolveResult.stopped(budget, null, stats);
+            }
+            boolean expanded = forwardPriority <= backwardPriority ? forward.expandBest(backward, meeting)
+                    : backward.expandBest(forward, meeting);
+            if (expanded) {
+                stats.expandedNodes++;
+                stats.scoreBound = Math.min(forwardPriority, backwardPriority);
+                stats.updateOpenSize(forward.open.size() + backward.open.size());
+                if (listener != null && stats.expandedNodes % SearchListener.PROGRESS_INTERVAL == 0) {
+                    stats.updateNodeTableSize(forward.nodes.size() + backward.nodes.size());
+                    listener.searchProgress(stats);
+                }
+            }
+        }
+        stats.updateNodeTableSize(forward.nodes.size() + backward.nodes.size());
+        if (meeting.moves == Integer.MAX_VALUE) {
+            return SolveResult.unsolvable(stats);
+        }
+        return SolveResult.solved(buildResult(start, forward, backward, meeting.state), true, stats);
+    }
+
+    /**
+     * Method joins forward moves up to meeting puzzle with backward moves after it and returns them as {@link MoveSequence}
+     */
+    private MoveSequence buildResult(long start, Direction forward, Direction backward, long meeting) {
+        MoveSequence.Builder result = new MoveSequence.Builder(new Puzzle(start));
+        long moveBefore = meeting;
+        while (moveBefore != 0) {
+            result.addFirst(PackedPuzzle.emptyIndex(moveBefore));
+            moveBefore = forward.nodes.getParent(forward.nodes.indexOf(moveBefore));
+        }
+        long moveAfter = backward.nodes.getParent(backward.nodes.indexOf(meeting));
+        while (moveAfter != 0) {
+            result.addLast(PackedPuzzle.emptyIndex(moveAfter));
+            moveAfter = backward.nodes.getParent(backward.nodes.indexOf(moveAfter));
+        }
+        return result.build();
+    }
+
+    @Override
+    public void setHeuristic(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    @Override
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+
+    @Override
+    public void setSearchListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Best candidate solution: puzzle reached by both searches with lowest sum of moves
+     */
+    private static class Meeting {
+        long state;
+        int moves = Integer.MAX_VALUE;
+
+        void update(long state, int moves) {
+            if (moves < this.moves) {
+                this.state = state;
+                this.moves = moves;
+            }
+        }
+    }
+
+    /**
+     * One search direction. Node table holds heuristic score f, open list is ordered by priority max(f, 2g)
+     */
+    private static class Direction {
+        final Heuristic heuristic;
+        final NodeTable nodes = new NodeTable();
+        final BucketOpenList open = new BucketOpenList();
+        final SolverStats stats;
+
+        Direction(Heuristic heuristic, long start, SolverStats stats) {
+            this.heuristic = heuristic;
+            this.stats = stats;
+            int score = heuristic.heuristicValue(start);
+            nodes.put(start, NodeTable.NO_PARENT, 0, score);
+            open.add(start, 0, score);
+        }
+
+        /**
+         * @return <code>false</code> if best puzzle was an outdated copy and nothing was expanded
+         */
+        boolean expandBest(Direction other, Meeting meeting) {
+            long state = open.remove();
+            int slot = nodes.indexOf(state);
+            if (nodes.isClosed(slot)) { // outdated copy of puzzle, which was later reached with fewer moves
+                return false;
+            }
+            nodes.close(slot);
+            int emptyIndex = PackedPuzzle.emptyIndex(state);
+            int heuristicValue = nodes.getScore(slot) - nodes.getDepth(slot);
+            int depth = nodes.getDepth(slot) + 1;
+            int parentEmptyIndex = nodes.getParentEmptyIndex(slot);
+            for (int cellToMove : BoardSize.FIFTEEN.getNeighbours(emptyIndex)) {
+                if (cellToMove == parentEmptyIndex) { // parent is never reached with fewer moves
+                    continue;
+                }
+                long moveAfter = PackedPuzzle.move(state, emptyIndex, cellToMove);
+                int afterSlot = nodes.indexOf(moveAfter);
+                stats.generatedNodes++;
+                int score;
+                if (afterSlot < 0) {
+                    int movedTile = PackedPuzzle.getCell(state, cellToMove);
+                    score = depth + heuristicValue + stats.heuristicDelta(heuristic, state, movedTile, cellToMove, emptyIndex);
+                } else {
+                    stats.duplicateNodes++;
+                    if (depth >= nodes.getDepth(afterSlot)) {
+                        continue;
+                    }
+                    score = nodes.getScore(afterSlot) - nodes.getDepth(afterSlot) + depth;
+                    nodes.reopen(afterSlot);
+                }
+                nodes.put(moveAfter, emptyIndex, depth, score);
+                open.add(moveAfter, depth, Math.max(score, 2 * depth));
+                int otherSlot = other.nodes.indexOf(moveAfter);
+                if (otherSlot >= 0) {
+                    meeting.update(moveAfter, depth + other.nodes.getDepth(otherSlot));
+                }
+            }
+            return true;
+        }
+    }
+
+}
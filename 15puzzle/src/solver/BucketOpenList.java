@@ -0,0 +1,134 @@
+package solver;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * 
+ * Open list made of buckets indexed by heuristic score (f) and then by solution tree depth (g).
+ * 
+ * Heuristic scores of 15-puzzle are small integers, so puzzle with lowest score is found by moving
+ *      cursor over buckets instead of sorting. Among puzzles with equal score deepest one is taken first,
+ *      as it is usually closest to solution. Puzzles of same score and depth are taken in LIFO order.
+ * 
+ * Adding and removing is O(1) amortized: cursors only move back when puzzle with lower score or
+ *      greater depth than current is added.
+ * 
+ * @author Marius
+ *
+ */
+public class BucketOpenList implements OpenList {
+
+    private static final int INITIAL_SCORES = 128;
+
+    private LongStack[][] buckets = new LongStack[INITIAL_SCORES][]; // [score][depth]
+    private int[] maxDepths = new int[INITIAL_SCORES]; // deepest possibly non empty bucket of each score
+    private int minScore = Integer.MAX_VALUE;
+    private int size;
+
+    @Override
+    public void add(long state, int depth, int score) {
+        if (score < 0 || depth < 0) {
+            throw new IllegalArgumentException("Score and depth can't be negative");
+        }
+        if (score >= buckets.length) {
+            int length = Math.max(buckets.length << 1, score + 1);
+            buckets = Arrays.copyOf(buckets, length);
+            maxDepths = Arrays.copyOf(maxDepths, length);
+        }
+        LongStack[] depths = buckets[score];
+        if (depths == null) {
+            depths = new LongStack[Math.max(depth + 1, 16)];
+            buckets[score] = depths;
+        } else if (depth >= depths.length) {
+            depths = Arrays.copyOf(depths, Math.max(depths.length << 1, depth + 1));
+            buckets[score] = depths;
+        }
+        if (depths[depth] == null) {
+            depths[depth] = new LongStack();
+        }
+        depths[depth].push(state);
+        if (depth > maxDepths[score]) {
+            maxDepths[score] = depth;
+        }
+        if (score < minScore) {
+            minScore = score;
+        }
+        size++;
+    }
+
+    @Override
+    public long remove() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        moveToBest();
+        size--;
+        return buckets[minScore][maxDepths[minScore]].pop();
+    }
+
+    /**
+     * @return lowest heuristic score in list, or {@link Integer#MAX_VALUE} if list is empty
+     */
+    public int getMinScore() {
+        if (size == 0) {
+            return Integer.MAX_VALUE;
+        }
+        moveToBest();
+        return minScore;
+    }
+
+    /**
+     * Moves cursors to deepest non empty bucket of lowest score, list must not be empty
+     */
+    private void moveToBest() {
+        while (true) {
+            LongStack[] depths = buckets[minScore];
+            if (depths != null) {
+                for (int depth = maxDepths[minScore]; depth >= 0; depth--) {
+                    LongStack bucket = depths[depth];
+                    if (bucket != null && !bucket.isEmpty()) {
+                        maxDepths[minScore] = depth;
+                        return;
+                    }
+                }
+                maxDepths[minScore] = 0;
+            }
+            minScore++;
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Growable stack of primitive longs
+     */
+    private static class LongStack {
+        private long[] values = new long[16];
+        private int size;
+
+        void push(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        long pop() {
+            return values[--size];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
+}
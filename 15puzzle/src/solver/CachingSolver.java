@@ -0,0 +1,85 @@
+package solver;
+
+import puzzle.MoveSequence;
+import puzzle.Puzzle;
+import solver.heuristics.Heuristic;
+
+/**
+ *
+ * Solver, which answers puzzles from {@link SolutionCache} and passes the rest to given solver
+ *
+ * Only optimal solutions are added to cache, as suffix of a longer one isn't guaranteed to be the shortest.
+ *      Cache may be shared by solvers of many threads, each of them needs its own caching solver.
+ *
+ * @author Marius
+ *
+ */
+public class CachingSolver implements Solver {
+
+    private final Solver solver;
+    private final SolutionCache cache;
+    private SearchListener listener = new ConsoleSearchListener();
+    private SolverStats stats = new SolverStats();
+    private boolean lastCached;
+
+    public CachingSolver(Solver solver, SolutionCache cache) {
+        this.solver = solver;
+        this.cache = cache;
+    }
+
+    /**
+     * @return cached solution (counted as search without expanded puzzles), or result of given solver
+     */
+    @Override
+    public SolveResult solve(Puzzle puzzle, SearchBudget budget) {
+        stats = new SolverStats();
+        stats.start();
+        MoveSequence solution = cache.get(puzzle);
+        lastCached = solution != null;
+        if (lastCached) {
+            if (listener != null) {
+                listener.searchStarted(puzzle);
+            }
+            stats.finish(solution);
+            stats.scoreBound = solution.getMoveCount();
+            if (listener != null) {
+                listener.searchFinished(stats);
+            }
+            return SolveResult.solved(solution, true, stats);
+        }
+        SolveResult result = solver.solve(puzzle, budget);
+        if (result.isOptimal() && result.getSolution() != null) {
+            cache.put(result.getSolution());
+        }
+        return result;
+    }
+
+    public SolutionCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public void setHeuristic(Heuristic heuristic) {
+        solver.setHeuristic(heuristic);
+    }
+
+    @Override
+    public Heuristic getHeuristic() {
+        return solver.getHeuristic();
+    }
+
+    @Override
+    public void setSearchListener(SearchListener listener) {
+        this.listener = listener;
+        solver.setSearchListener(listener);
+    }
+
+    /**
+     * @return stats of cache lookup if last puzzle was cached, otherwise stats of given solver
+     */
+    @Override
+    public SolverStats getStats() {
+        return lastCached ? stats : solver.getStats();
+    }
+
+}
@@ -0,0 +1,37 @@
+package solver;
+
+/**
+ *
+ * Flag, which stops searches using it (see {@link SearchBudget#withCancellation}) from any thread
+ *
+ * Token can have a parent: cancelling parent cancels all its children, but not the other way, so one token
+ *      can stop all solves of a client while every solve still can be cancelled alone.
+ *
+ * @author Marius
+ *
+ */
+public class CancellationToken {
+
+    private final CancellationToken parent;
+    private volatile boolean cancelled;
+
+    public CancellationToken() {
+        this(null);
+    }
+
+    /**
+     * @param parent - token, which cancels this one too, or <code>null</code>
+     */
+    public CancellationToken(CancellationToken parent) {
+        this.parent = parent;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled || parent != null && parent.isCancelled();
+    }
+
+}
@@ -0,0 +1,22 @@
+package solver;
+
+/**
+ *
+ * Prints search progress to standard output, used by verbose solvers
+ *
+ * @author Marius
+ *
+ */
+public class ConsoleSearchListener implements SearchListener {
+
+    @Override
+    public void searchProgress(SolverStats stats) {
+        System.out.printf("Solving... Score bound %d, considered %,d moves.\n", stats.getScoreBound(), stats.getExpandedNodes());
+    }
+
+    @Override
+    public void searchFinished(SolverStats stats) {
+        System.out.printf("Solution considered %d moves (%s)\n", stats.getExpandedNodes(), stats);
+    }
+
+}
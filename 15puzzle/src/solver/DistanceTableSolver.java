@@ -0,0 +1,169 @@
+package solver;
+
+import java.util.Arrays;
+
+import puzzle.BoardSize;
+import puzzle.MoveSequence;
+import puzzle.Puzzle;
+import puzzle.PuzzleService;
+import puzzle.SmallPackedPuzzle;
+import solver.heuristics.Heuristic;
+
+/**
+ *
+ * Solver of 8-puzzle, which looks up distances of all its puzzles
+ *
+ * 8-puzzle has only 9! / 2 = 181440 solvable states, so distance of every one of them to solved puzzle is found once
+ *      by breadth first search backwards from solved puzzle and kept in a table indexed by permutation rank (9! bytes).
+ *      Solving is then a walk through neighbours, each one move closer to solved puzzle, so every solution is
+ *      the shortest one and takes microseconds, which suits solving many puzzles in bulk.
+ *
+ * Table is built on first use, all solvers share it.
+ *
+ * @author Marius
+ *
+ */
+public class DistanceTableSolver implements Solver {
+
+    /**
+     * (8 - i)! - weight of i-th digit of permutation rank
+     */
+    private static final int[] FACTORIALS = { 40320, 5040, 720, 120, 24, 6, 2, 1 };
+    private static final int PERMUTATIONS = FACTORIALS[0] * SmallPackedPuzzle.CELLS;
+    private static final byte UNKNOWN = -1;
+
+    private PuzzleService puzzleService;
+    private SearchListener listener = new ConsoleSearchListener();
+    private SolverStats stats = new SolverStats();
+
+    public DistanceTableSolver(PuzzleService puzzleService) {
+        this.puzzleService = puzzleService;
+    }
+
+    /**
+     * @param puzzle - 8-puzzle to solve
+     * @param budget - limits of search, every move of solution counts as one expanded puzzle
+     *
+     * @return shortest solution
+     */
+    @Override
+    public SolveResult solve(Puzzle puzzle, SearchBudget budget) {
+        if (puzzle.getSize() != BoardSize.EIGHT) {
+            throw new IllegalArgumentException("Only 8-puzzle is supported, given " + puzzle.getSize().getName());
+        }
+        stats = new SolverStats();
+        stats.start();
+        if (listener != null) {
+            listener.searchStarted(puzzle);
+        }
+        SolveResult result = puzzleService.isSolvable(puzzle) ? walk(puzzle, budget) : SolveResult.unsolvable(stats);
+        stats.finish(result.getSolution());
+        if (listener != null) {
+            listener.searchFinished(stats);
+        }
+        return result;
+    }
+
+    /**
+     * Moves from given puzzle to any neighbour, which is one move closer to solved puzzle, until it's solved
+     */
+    private SolveResult walk(Puzzle start, SearchBudget budget) {
+        byte[] distances = Table.DISTANCES;
+        MoveSequence.Builder result = new MoveSequence.Builder(start);
+        int cells = (int) start.getCells();
+        int emptyIndex = start.getEmptyIndex();
+        int distance = distances[rank(cells)];
+        stats.scoreBound = distance;
+        result.addLast(emptyIndex);
+        while (distance > 0) {
+            if (budget.isExceeded(stats.expandedNodes, 0)) {
+                return SolveResult.stopped(budget, null, stats);
+            }
+            stats.expandedNodes++;
+            for (int tileIndex : BoardSize.EIGHT.getNeighbours(emptyIndex)) {
+                stats.generatedNodes++;
+                int after = SmallPackedPuzzle.move(cells, emptyIndex, tileIndex);
+                if (distances[rank(after)] == distance - 1) {
+                    cells = after;
+                    emptyIndex = tileIndex;
+                    break;
+                }
+            }
+            distance--;
+            result.addLast(emptyIndex);
+        }
+        return SolveResult.solved(result.build(), true, stats);
+    }
+
+    /**
+     * @return index of puzzle among all permutations of its values (Lehmer code), from 0 to 9! - 1.
+     *      Digit of the last cell is always 0, so stored cells are enough
+     */
+    static int rank(int cells) {
+        int rank = 0;
+        int used = 0;
+        for (int i = 0; i < FACTORIALS.length; i++) {
+            int value = (cells >>> (i << 2)) & 0xF;
+            rank += Integer.bitCount(~used & ((1 << value) - 1)) * FACTORIALS[i]; // smaller values, which are still unused
+            used |= 1 << value;
+        }
+        return rank;
+    }
+
+    /**
+     * Holder of distance table, so it's built on first use (class initialization is thread safe)
+     */
+    private static class Table {
+        static final byte[] DISTANCES = createDistances();
+
+        private static byte[] createDistances() {
+            byte[] distances = new byte[PERMUTATIONS];
+            Arrays.fill(distances, UNKNOWN);
+            int[] queue = new int[PERMUTATIONS / 2];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = SmallPackedPuzzle.SOLVED;
+            distances[rank(SmallPackedPuzzle.SOLVED)] = 0;
+            while (head < tail) {
+                int cells = queue[head++];
+                int emptyIndex = SmallPackedPuzzle.emptyIndex(cells);
+                byte distance = (byte) (distances[rank(cells)] + 1);
+                for (int tileIndex : BoardSize.EIGHT.getNeighbours(emptyIndex)) {
+                    int after = SmallPackedPuzzle.move(cells, emptyIndex, tileIndex);
+                    int rank = rank(after);
+                    if (distances[rank] == UNKNOWN) {
+                        distances[rank] = distance;
+                        queue[tail++] = after;
+                    }
+                }
+            }
+            return distances;
+        }
+    }
+
+    /**
+     * Does nothing, distances are exact, so given heuristic is ignored
+     */
+    @Override
+    public void setHeuristic(Heuristic heuristic) {
+    }
+
+    /**
+     * @return <code>null</code>, distances are exact, so no heuristic is used
+     */
+    @Override
+    public Heuristic getHeuristic() {
+        return null;
+    }
+
+    @Override
+    public void setSearchListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public SolverStats getStats() {
+        return stats;
+    }
+
+}
@@ -0,0 +1,200 @@
+package solver;
+
+import puzzle.BoardSize;
+import puzzle.MoveSequence;
+import puzzle.PackedPuzzle;
+import puzzle.Puzzle;
+import puzzle.PuzzleService;
+import solver.heuristics.Heuristic;
+import solver.heuristics.PerimeterDatabase;
+import solver.heuristics.PerimeterHeuristic;
+
+/**
+ *
+ * Iterative deepening A* (IDA*) search algorithm for finding 15-puzzle solution
+ *
+ * Runs depth first searches with growing limit of heuristic score, starting from heuristic value of given puzzle.
+ * Every next limit is the lowest score, which exceeded previous one. All searches move and undo moves on a single
+ * puzzle board, so memory usage depends only on solution length and no objects are created per puzzle considered.
+ * Moves are pruned by {@link MovePruner}, so search doesn't go to puzzles, which the same branch reaches by a smaller
+ *      path (moving empty cell back to where it just was is the simplest case).
+ * With {@link PerimeterHeuristic} branch ends at the first puzzle inside perimeter: its distance is exact,
+ *      so it's either the rest of solution or the lowest score of the branch.
+ *
+ * Source - https://en.wikipedia.org/wiki/Iterative_deepening_A*
+ *
+ * @author Marius
+ *
+ */
+public class IDAStarSolver implements Solver {
+
+    private static final int FOUND = -1;
+    private static final int EXCEEDED = -2;
+    private static final int NO_PARENT = -1;
+
+    private PuzzleService puzzleService;
+    private Heuristic heuristic;
+    private PackedPuzzle board;
+    private int[] path = new int[128]; // empty cell index after every move of current search branch
+    private SearchListener listener = new ConsoleSearchListener();
+    private SolverStats stats = new SolverStats();
+    private SearchBudget budget;
+    private Heuristic moveHeuristic; // heuristic updated by deltas, inner one of perimeter heuristic
+    private PerimeterDatabase perimeter;
+    private final MovePruner pruner = MovePruner.fifteenPuzzle();
+
+    public IDAStarSolver(PuzzleService puzzleService, Heuristic heuristic) {
+        this.puzzleService = puzzleService;
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * @param puzzle - puzzle to solve
+     *
+     * @param budget - limits of search, memory limit doesn't matter, as memory use is tiny
+     *
+     * @return shortest solution, or no solution if budget ran out first
+     */
+    @Override
+    public SolveResult solve(Puzzle puzzle, SearchBudget budget) {
+        if (puzzle.getSize() != BoardSize.FIFTEEN) {
+            throw new IllegalArgumentException("Only 15-puzzle is supported, given " + puzzle.getSize().getName());
+        }
+        stats = new SolverStats();
+        stats.start();
+        if (listener != null) {
+            listener.searchStarted(puzzle);
+        }
+        this.budget = budget;
+        SolveResult result = puzzleService.isSolvable(puzzle.getCells()) ? iterate(puzzle) : SolveResult.unsolvable(stats);
+        stats.finish(result.getSolution());
+        if (listener != null) {
+            listener.searchFinished(stats);
+        }
+        return result;
+    }
+
+    /**
+     * Runs searches with growing score limit until solution is found
+     */
+    private SolveResult iterate(Puzzle puzzle) {
+        long start = puzzle.getCells();
+        board = new PackedPuzzle(start, puzzle.getEmptyIndex());
+        perimeter = heuristic instanceof PerimeterHeuristic ? ((PerimeterHeuristic) heuristic).getPerimeter() : null;
+        moveHeuristic = perimeter != null ? ((PerimeterHeuristic) heuristic).getHeuristic() : heuristic;
+        int bound = heuristic.heuristicValue(start);
+        while (true) {
+            if (bound >= path.length) {
+                path = new int[bound << 1];
+            }
+            stats.scoreBound = bound;
+            if (listener != null) {
+                listener.searchProgress(stats);
+            }
+            int result = search(0, bound, MovePruner.START, moveHeuristic.heuristicValue(start));
+            if (result == FOUND) {
+                return SolveResult.solved(buildResult(puzzle), true, stats);
+            }
+            if (result == EXCEEDED) {
+                return SolveResult.stopped(budget, null, stats);
+            }
+            if (result == Integer.MAX_VALUE) {
+                return SolveResult.unsolvable(stats);
+            }
+            bound = result;
+        }
+    }
+
+    /**
+     * Depth first search from current board state
+     * @param depth - moves made from given puzzle
+     * @param bound - heuristic score limit of current iteration
+     * @param pruneState - state of {@link MovePruner} after moves of current branch
+     * @param heuristicValue - heuristic value of current board state, updated by delta of every move (not lifted by perimeter)
+     * @return {@link #FOUND} if solution is found (board is left at the end of found branch), {@link #EXCEEDED} if budget ran out
+     *      (board is left as it was), otherwise lowest heuristic score, which exceeded limit
+     */
+    private int search(int depth, int bound, int pruneState, int heuristicValue) {
+        long cells = board.getCells();
+        int distance = perimeter != null ? perimeter.lift(cells, heuristicValue) : heuristicValue;
+        int score = depth + distance;
+        if (score > bound) {
+            return score;
+        }
+        if (perimeter != null && distance <= perimeter.getDepth()) { // inside perimeter, distance is exact
+            stats.expandedNodes++;
+            for (long state = cells; state != PackedPuzzle.SOLVED; depth++) {
+                path[depth] = perimeter.nextEmptyIndex(state);
+                state = PackedPuzzle.move(state, PackedPuzzle.emptyIndex(state), path[depth]);
+            }
+            path[depth] = NO_PARENT;
+            return FOUND;
+        }
+        if (budget.isExceeded(stats.expandedNodes, 0)) {
+            return EXCEEDED;
+        }
+        stats.expandedNodes++;
+        if (cells == PackedPuzzle.SOLVED) {
+            path[depth] = NO_PARENT;
+            return FOUND;
+        }
+        int min = Integer.MAX_VALUE;
+        int emptyIndex = board.getEmptyIndex();
+        for (int cellToMove : BoardSize.FIFTEEN.getNeighbours(emptyIndex)) {
+            int pruneAfter = pruner.next(pruneState, emptyIndex, cellToMove);
+            if (pruneAfter == MovePruner.PRUNED) {
+                continue;
+            }
+            stats.generatedNodes++;
+            int movedTile = PackedPuzzle.getCell(cells, cellToMove);
+            int heuristicAfter = heuristicValue + stats.heuristicDelta(moveHeuristic, cells, movedTile, cellToMove, emptyIndex);
+            board.move(cellToMove);
+            path[depth] = cellToMove;
+            int result = search(depth + 1, bound, pruneAfter, heuristicAfter);
+            if (result == FOUND) {
+                return FOUND;
+            }
+            board.move(emptyIndex); // undo
+            if (result == EXCEEDED) {
+                return EXCEEDED;
+            }
+            if (result < min) {
+                min = result;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Method collects moves of found branch from given puzzle and returns them as {@link MoveSequence}
+     */
+    private MoveSequence buildResult(Puzzle start) {
+        MoveSequence.Builder result = new MoveSequence.Builder(start);
+        result.addLast(start.getEmptyIndex());
+        for (int i = 0; path[i] != NO_PARENT; i++) {
+            result.addLast(path[i]);
+        }
+        return result.build();
+    }
+
+    @Override
+    public void setHeuristic(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    @Override
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+
+    @Override
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public void setSearchListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+}
@@ -0,0 +1,199 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import puzzle.BoardSize;
+import puzzle.PackedPuzzle;
+
+/**
+ *
+ * Finite state machine, which prunes moves of 15-puzzle search: a move is pruned if the path ends with a sequence
+ *      of moves, which leads to the same puzzle as a shorter sequence (or as long, but made of smaller directions).
+ *      Every puzzle is still reached by its smallest path, so depth first search finds the same solutions while
+ *      generating much fewer duplicates. Move and its inverse is the shortest such sequence.
+ *
+ * Duplicate sequences are learned by breadth first search of moves from every empty cell position up to
+ *      {@value #DEPTH} moves: sequence, which reaches a puzzle found before, is a duplicate, unless its suffix already
+ *      is. Puzzle after a sequence depends only on moves of empty cell and not on tile values, so duplicate found
+ *      for one puzzle holds for every puzzle with the same empty cell position. Sequences are matched by Aho-Corasick
+ *      automaton over directions (see {@link BoardSize#getDirection}), every state has mask of empty cell positions,
+ *      where sequences ending in it are duplicates.
+ *
+ * Source - Taylor, Korf - Pruning duplicate nodes in depth-first search (AAAI-93)
+ *
+ * @author Marius
+ *
+ */
+public final class MovePruner {
+
+    public static final int START = 0;
+    public static final int PRUNED = -1;
+
+    static final int DEPTH = 14;
+
+    private static final int DIRECTIONS = 4;
+
+    private final int[] transitions; // [state * DIRECTIONS + direction]
+    private final int[] pruned; // mask of empty cell indexes after move, where state ends with duplicate sequence
+    private final int duplicates;
+
+    private MovePruner(Map<Long, Integer> duplicates) {
+        this.duplicates = duplicates.size();
+        List<int[]> children = new ArrayList<int[]>();
+        List<Integer> masks = new ArrayList<Integer>();
+        children.add(newNode());
+        masks.add(0);
+        for (Map.Entry<Long, Integer> duplicate : duplicates.entrySet()) {
+            long sequence = duplicate.getKey();
+            int node = START;
+            for (int i = length(sequence) - 1; i >= 0; i--) {
+                int direction = (int) (sequence >>> (2 * i)) & 3;
+                if (children.get(node)[direction] == PRUNED) {
+                    children.get(node)[direction] = children.size();
+                    children.add(newNode());
+                    masks.add(0);
+                }
+                node = children.get(node)[direction];
+            }
+            masks.set(node, masks.get(node) | duplicate.getValue());
+        }
+
+        // breadth first over trie: missing moves go where the longest suffix, which is also a prefix, goes
+        transitions = new int[children.size() * DIRECTIONS];
+        pruned = new int[children.size()];
+        int[] fallback = new int[children.size()];
+        int[] queue = new int[children.size()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = START;
+        while (head < tail) {
+            int node = queue[head++];
+            pruned[node] = masks.get(node) | (node == START ? 0 : pruned[fallback[node]]);
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                int child = children.get(node)[direction];
+                if (child == PRUNED) {
+                    transitions[node * DIRECTIONS + direction] = node == START ? START
+                            : transitions[fallback[node] * DIRECTIONS + direction];
+                } else {
+                    fallback[child] = node == START ? START : transitions[fallback[node] * DIRECTIONS + direction];
+                    transitions[node * DIRECTIONS + direction] = child;
+                    queue[tail++] = child;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return pruner of 15-puzzle moves, learned on first use
+     */
+    public static MovePruner fifteenPuzzle() {
+        return Holder.FIFTEEN;
+    }
+
+    /**
+     * @param state - state after previous moves, {@link #START} before the first one
+     * @param emptyIndex - empty cell index before move
+     * @param tileIndex - index of moved cell (empty cell index after move)
+     * @return state after the move, or {@link #PRUNED} if puzzle after it is reached by a smaller path
+     */
+    public int next(int state, int emptyIndex, int tileIndex) {
+        int after = transitions[state * DIRECTIONS + BoardSize.FIFTEEN.getDirection(emptyIndex, tileIndex)];
+        return (pruned[after] >>> tileIndex & 1) != 0 ? PRUNED : after;
+    }
+
+    /**
+     * @return amount of automaton states
+     */
+    public int size() {
+        return pruned.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Move pruner of %,d duplicate sequences up to %d moves, %,d states", duplicates, DEPTH,
+                pruned.length);
+    }
+
+    /**
+     * Searches sequences of all empty cell positions one length at a time, so when sequence is checked,
+     *      all shorter duplicates are known.
+     * @return duplicate sequences (see {@link #sequence}) with masks of empty cell indexes after them
+     */
+    static Map<Long, Integer> learnDuplicates(int depth) {
+        BoardSize size = BoardSize.FIFTEEN;
+        Map<Long, Integer> duplicates = new HashMap<Long, Integer>();
+        NodeTable[] visited = new NodeTable[size.getCells()];
+        long[][] states = new long[size.getCells()][];
+        long[][] sequences = new long[size.getCells()][];
+        for (int start = 0; start < size.getCells(); start++) {
+            long cells = PackedPuzzle.move(PackedPuzzle.SOLVED, PackedPuzzle.CELLS - 1, start); // any distinct tiles do
+            visited[start] = new NodeTable();
+            visited[start].put(cells, NodeTable.NO_PARENT, 0, 0);
+            states[start] = new long[] { cells };
+            sequences[start] = new long[] { 1L };
+        }
+        for (int length = 1; length <= depth; length++) {
+            Map<Long, Integer> found = new HashMap<Long, Integer>();
+            for (int start = 0; start < size.getCells(); start++) {
+                long[] nextStates = new long[states[start].length * (DIRECTIONS - 1) + 1];
+                long[] nextSequences = new long[nextStates.length];
+                int count = 0;
+                for (int i = 0; i < states[start].length; i++) { // smaller sequences first, so first path is the smallest
+                    long cells = states[start][i];
+                    int emptyIndex = PackedPuzzle.emptyIndex(cells);
+                    for (int tileIndex : size.getNeighbours(emptyIndex)) {
+                        long sequence = sequences[start][i] << 2 | size.getDirection(emptyIndex, tileIndex);
+                        long after = PackedPuzzle.move(cells, emptyIndex, tileIndex);
+                        if (!visited[start].contains(after)) {
+                            visited[start].put(after, emptyIndex, length, 0);
+                            nextStates[count] = after;
+                            nextSequences[count++] = sequence;
+                        } else if (!endsWithDuplicate(duplicates, sequence, tileIndex)) {
+                            found.merge(sequence, 1 << tileIndex, (a, b) -> a | b);
+                        }
+                    }
+                }
+                states[start] = Arrays.copyOf(nextStates, count);
+                sequences[start] = Arrays.copyOf(nextSequences, count);
+            }
+            found.forEach((sequence, mask) -> duplicates.merge(sequence, mask, (a, b) -> a | b));
+        }
+        return duplicates;
+    }
+
+    /**
+     * Prefix of checked sequence is the smallest path, so only its suffixes can be duplicates
+     */
+    private static boolean endsWithDuplicate(Map<Long, Integer> duplicates, long sequence, int emptyIndex) {
+        for (int length = 2; length < length(sequence); length++) {
+            Integer mask = duplicates.get(sequence & ((1L << (2 * length)) - 1) | 1L << (2 * length));
+            if (mask != null && (mask >>> emptyIndex & 1) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sequence is packed to 2 bits per direction, the last one in the lowest bits, above the highest one is set bit
+     * @return amount of moves in sequence
+     */
+    private static int length(long sequence) {
+        return (63 - Long.numberOfLeadingZeros(sequence)) / 2;
+    }
+
+    private static int[] newNode() {
+        int[] children = new int[DIRECTIONS];
+        Arrays.fill(children, PRUNED);
+        return children;
+    }
+
+    private static class Holder {
+        static final MovePruner FIFTEEN = new MovePruner(learnDuplicates(DEPTH));
+    }
+
+}
@@ -0,0 +1,81 @@
+package solver;
+
+import puzzle.BoardSize;
+import puzzle.Puzzle;
+import puzzle.PuzzleService;
+import solver.heuristics.Heuristic;
+
+/**
+ *
+ * Solver of all board sizes: passes every puzzle to solver of its size, 15-puzzles to given one,
+ *      8-puzzles to {@link DistanceTableSolver} and 24-puzzles to {@link WideIDAStarSolver}
+ *
+ * Heuristic belongs to the 15-puzzle solver, solvers of other sizes have their own.
+ *
+ * @author Marius
+ *
+ */
+public class MultiSizeSolver implements Solver {
+
+    private final Solver eightSolver;
+    private final Solver fifteenSolver;
+    private final Solver twentyFourSolver;
+    private Solver lastSolver;
+
+    public MultiSizeSolver(PuzzleService puzzleService, Solver fifteenSolver) {
+        this(new DistanceTableSolver(puzzleService), fifteenSolver, new WideIDAStarSolver(puzzleService));
+    }
+
+    public MultiSizeSolver(Solver eightSolver, Solver fifteenSolver, Solver twentyFourSolver) {
+        this.eightSolver = eightSolver;
+        this.fifteenSolver = fifteenSolver;
+        this.twentyFourSolver = twentyFourSolver;
+        this.lastSolver = fifteenSolver;
+    }
+
+    @Override
+    public SolveResult solve(Puzzle puzzle, SearchBudget budget) {
+        lastSolver = getSolver(puzzle.getSize());
+        return lastSolver.solve(puzzle, budget);
+    }
+
+    /**
+     * @return solver, which is used for puzzles of given size
+     */
+    public Solver getSolver(BoardSize size) {
+        switch (size) {
+            case EIGHT:
+                return eightSolver;
+            case TWENTY_FOUR:
+                return twentyFourSolver;
+            default:
+                return fifteenSolver;
+        }
+    }
+
+    @Override
+    public void setHeuristic(Heuristic heuristic) {
+        fifteenSolver.setHeuristic(heuristic);
+    }
+
+    @Override
+    public Heuristic getHeuristic() {
+        return fifteenSolver.getHeuristic();
+    }
+
+    @Override
+    public void setSearchListener(SearchListener listener) {
+        eightSolver.setSearchListener(listener);
+        fifteenSolver.setSearchListener(listener);
+        twentyFourSolver.setSearchListener(listener);
+    }
+
+    /**
+     * @return stats of solver, which got the last puzzle
+     */
+    @Override
+    public SolverStats getStats() {
+        return lastSolver.getStats();
+    }
+
+}
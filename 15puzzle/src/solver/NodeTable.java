@@ -0,0 +1,196 @@
+package solver;
+
+import puzzle.PackedPuzzle;
+
+/**
+ *
+ * Open addressing hash table of search nodes, keyed by packed puzzle state (see {@link PackedPuzzle})
+ *
+ * Every node keeps empty cell index of its parent state (parent is restored by moving empty cell back),
+ *      solution tree depth (g), heuristic score (f = g + h) and closed flag, all in primitive arrays.
+ * State 0 is never a valid puzzle, so it marks free slots.
+ *
+ * Slot numbers returned by {@link #put} and {@link #indexOf} are valid until next {@link #put}, which can resize table.
+ *
+ * @author Marius
+ *
+ */
+public class NodeTable {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final float DEFAULT_LOAD_FACTOR = 0.6f;
+    public static final int NO_PARENT = -1;
+
+    private static final long FREE = 0L;
+    private static final byte CLOSED = 1;
+
+    private final float loadFactor;
+    private long[] states;
+    private byte[] parentEmpty;
+    private short[] depths;
+    private short[] scores;
+    private byte[] flags;
+    private int mask;
+    private int size;
+    private int threshold;
+
+    public NodeTable() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param initialCapacity - expected amount of nodes, rounded up to power of two
+     * @param loadFactor - part of slots which can be filled before table grows, from 0 to 1 (exclusive)
+     */
+    public NodeTable(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Initial capacity must be positive: " + initialCapacity);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Load factor must be between 0 and 1: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor((int) Math.min(Integer.MAX_VALUE, (long) Math.ceil(initialCapacity / loadFactor))));
+    }
+
+    /**
+     * @return slot of given state, or -1 if table doesn't contain it
+     */
+    public int indexOf(long state) {
+        int slot = PackedPuzzle.hash(state) & mask;
+        while (states[slot] != FREE) {
+            if (states[slot] == state) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public boolean contains(long state) {
+        return indexOf(state) >= 0;
+    }
+
+    /**
+     * Adds new node or overwrites existing node of given state (closed flag of existing node is kept)
+     * @param state - packed puzzle state
+     * @param parentEmptyIndex - empty cell index of parent state, or {@link #NO_PARENT} for initial state
+     * @param depth - solution tree depth (g)
+     * @param score - heuristic score (f)
+     * @return slot of the node
+     */
+    public int put(long state, int parentEmptyIndex, int depth, int score) {
+        if (size >= threshold) {
+            resize();
+        }
+        int slot = PackedPuzzle.hash(state) & mask;
+        while (states[slot] != FREE && states[slot] != state) {
+            slot = (slot + 1) & mask;
+        }
+        if (states[slot] == FREE) {
+            states[slot] = state;
+            flags[slot] = 0;
+            size++;
+        }
+        parentEmpty[slot] = (byte) parentEmptyIndex;
+        depths[slot] = (short) depth;
+        scores[slot] = (short) score;
+        return slot;
+    }
+
+    public long getState(int slot) {
+        return states[slot];
+    }
+
+    public int getDepth(int slot) {
+        return depths[slot];
+    }
+
+    public int getScore(int slot) {
+        return scores[slot];
+    }
+
+    /**
+     * Marks node as expanded
+     */
+    public void close(int slot) {
+        flags[slot] |= CLOSED;
+    }
+
+    /**
+     * Marks expanded node as waiting for expansion again
+     */
+    public void reopen(int slot) {
+        flags[slot] &= ~CLOSED;
+    }
+
+    public boolean isClosed(int slot) {
+        return (flags[slot] & CLOSED) != 0;
+    }
+
+    public int getParentEmptyIndex(int slot) {
+        return parentEmpty[slot];
+    }
+
+    /**
+     * @return packed parent state of node in given slot, or {@link #FREE} (0) for initial state
+     */
+    public long getParent(int slot) {
+        int parent = parentEmpty[slot];
+        if (parent == NO_PARENT) {
+            return FREE;
+        }
+        long state = states[slot];
+        return PackedPuzzle.move(state, PackedPuzzle.emptyIndex(state), parent);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return states.length;
+    }
+
+    private void resize() {
+        long[] oldStates = states;
+        byte[] oldParentEmpty = parentEmpty;
+        short[] oldDepths = depths;
+        short[] oldScores = scores;
+        byte[] oldFlags = flags;
+        if (oldStates.length == 1 << 30) {
+            throw new IllegalStateException("Node table can't grow beyond " + threshold + " nodes");
+        }
+        allocate(oldStates.length << 1);
+        for (int i = 0; i < oldStates.length; i++) {
+            long state = oldStates[i];
+            if (state != FREE) {
+                int slot = PackedPuzzle.hash(state) & mask;
+                while (states[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                states[slot] = state;
+                parentEmpty[slot] = oldParentEmpty[i];
+                depths[slot] = oldDepths[i];
+                scores[slot] = oldScores[i];
+                flags[slot] = oldFlags[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        states = new long[capacity];
+        parentEmpty = new byte[capacity];
+        depths = new short[capacity];
+        scores = new short[capacity];
+        flags = new byte[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * loadFactor);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        if (capacity >= 1 << 30) {
+            return 1 << 30;
+        }
+        return Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+    }
+}
@@ -0,0 +1,28 @@
+package solver;
+
+/**
+ * 
+ * Open list of A* search: packed puzzles waiting to be expanded, best (lowest heuristic score) first
+ * 
+ * @author Marius
+ *
+ */
+public interface OpenList {
+
+    /**
+     * @param state - packed puzzle state
+     * @param depth - solution tree depth (g)
+     * @param score - heuristic score (f = g + h)
+     */
+    public void add(long state, int depth, int score);
+
+    /**
+     * @return removes and returns packed puzzle with lowest heuristic score
+     */
+    public long remove();
+
+    public boolean isEmpty();
+
+    public int size();
+
+}
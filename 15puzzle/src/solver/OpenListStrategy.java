@@ -0,0 +1,38 @@
+package solver;
+
+/**
+ * 
+ * Available open list implementations for {@link AStarSolver}
+ * 
+ * @author Marius
+ *
+ */
+public enum OpenListStrategy {
+
+    /**
+     * Binary heap ordered by heuristic score, which is stored with every queued puzzle
+     */
+    PRIORITY_QUEUE {
+        @Override
+        public OpenList create(NodeTable nodes) {
+            return new PriorityQueueOpenList();
+        }
+    },
+
+    /**
+     * Buckets indexed by heuristic score, ties broken by deepest solution tree depth
+     */
+    BUCKETS {
+        @Override
+        public OpenList create(NodeTable nodes) {
+            return new BucketOpenList();
+        }
+    };
+
+    /**
+     * @param nodes - node table of current search
+     * @return new empty open list
+     */
+    public abstract OpenList create(NodeTable nodes);
+
+}
@@ -0,0 +1,395 @@
+package solver;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import puzzle.BoardSize;
+import puzzle.MoveSequence;
+import puzzle.PackedPuzzle;
+import puzzle.Puzzle;
+import puzzle.PuzzleService;
+import solver.heuristics.Heuristic;
+
+/**
+ *
+ * Hash distributed A* (HDA*) search algorithm for finding 15-puzzle solution on several threads
+ *
+ * Every puzzle state is owned by one worker thread, chosen by state hash. Every worker has its own node table
+ *      and open list, which are never touched by other threads. Puzzles made from expanded ones are sent
+ *      to their owners in batches through lock free queues.
+ *
+ * When solved puzzle is reached, its amount of moves becomes upper bound and puzzles with heuristic score
+ *      not lower than it are dropped. Search ends when all workers have nothing left below the bound
+ *      and no batch is on the way, at that moment the bound is proven optimal.
+ *      Pending work is counted by one shared counter: every busy worker and every sent batch adds one,
+ *      so it can reach zero only when no work can appear anymore.
+ *
+ * Workers count their own stats, which are summed when search ends, so listener gets no progress calls in between.
+ * Search budget is split evenly between workers, search stops when any of them runs out of its part.
+ *
+ * Source - https://www.aaai.org/Papers/ICAPS/2009/ICAPS09-025.pdf (Kishimoto, Fukunaga, Botea - Scalable, Parallel Best-First Search)
+ *
+ * @author Marius
+ *
+ */
+public class ParallelAStarSolver implements Solver {
+
+    private static final int BATCH_NODES = 256;
+    private static final int FLUSH_INTERVAL = 64; // expansions between sending not full batches
+    private static final long IDLE_PARK_NANOS = 20000;
+
+    private PuzzleService puzzleService;
+    private Heuristic heuristic;
+    private int threads;
+    private SearchListener listener = new ConsoleSearchListener();
+    private SolverStats stats = new SolverStats();
+
+    public ParallelAStarSolver(PuzzleService puzzleService, Heuristic heuristic) {
+        this(puzzleService, heuristic, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threads - amount of worker threads
+     */
+    public ParallelAStarSolver(PuzzleService puzzleService, Heuristic heuristic, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread amount must be positive: " + threads);
+        }
+        this.puzzleService = puzzleService;
+        this.heuristic = heuristic;
+        this.threads = threads;
+    }
+
+    /**
+     * @param puzzle - puzzle to solve
+     *
+     * @param budget - limits of search, split evenly between worker threads
+     *
+     * @return shortest solution, or the best solution found (if any) if budget ran out first
+     */
+    @Override
+    public SolveResult solve(Puzzle puzzle, SearchBudget budget) {
+        if (puzzle.getSize() != BoardSize.FIFTEEN) {
+            throw new IllegalArgumentException("Only 15-puzzle is supported, given " + puzzle.getSize().getName());
+        }
+        stats = new SolverStats();
+        stats.start();
+        if (listener != null) {
+            listener.searchStarted(puzzle);
+        }
+        SolveResult result = puzzleService.isSolvable(puzzle.getCells()) ? search(puzzle.getCells(), budget) : SolveResult.unsolvable(stats);
+        stats.finish(result.getSolution());
+        if (listener != null) {
+            listener.searchFinished(stats);
+        }
+        return result;
+    }
+
+    private SolveResult search(long start, SearchBudget budget) {
+        Search search = new Search(heuristic, threads, budget.split(threads));
+        search.workers[search.owner(start)].insert(start, NodeTable.NO_PARENT, 0, heuristic.heuristicValue(start));
+        Thread[] workerThreads = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workerThreads[i] = new Thread(search.workers[i], "hda-worker-" + i);
+            workerThreads[i].start();
+        }
+        try {
+            for (Thread thread : workerThreads) {
+                thread.join();
+            }
+        } catch (InterruptedException ex) {
+            search.done = true;
+            joinUninterruptibly(workerThreads); // workers must stop before their node tables and stats are read
+            Thread.currentThread().interrupt();
+            return SolveResult.cancelled(stats);
+        } finally {
+            int scoreBound = Integer.MAX_VALUE; // lowest score any worker is at is a lower bound of solution length
+            for (Worker worker : search.workers) {
+                worker.stats.updateNodeTableSize(worker.nodes.size());
+                stats.add(worker.stats);
+                if (worker.stats.expandedNodes > 0) {
+                    scoreBound = Math.min(scoreBound, worker.stats.scoreBound);
+                }
+            }
+            stats.scoreBound = scoreBound == Integer.MAX_VALUE ? 0 : scoreBound;
+        }
+        if (search.failure != null) {
+            throw new IllegalStateException("Parallel search failed", search.failure);
+        }
+        MoveSequence solution = search.bound.get() == Integer.MAX_VALUE ? null : buildResult(start, search);
+        if (search.exceeded) {
+            return SolveResult.stopped(budget, solution, stats);
+        }
+        return solution == null ? SolveResult.unsolvable(stats) : SolveResult.solved(solution, true, stats);
+    }
+
+    /**
+     * Waits for given threads to finish, interrupts of waiting thread are delayed until they do
+     */
+    private static void joinUninterruptibly(Thread[] threads) {
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Method backtraces moves through node tables of owners and returns them as {@link MoveSequence}
+     */
+    private MoveSequence buildResult(long start, Search search) {
+        MoveSequence.Builder result = new MoveSequence.Builder(new Puzzle(start));
+        long moveBefore = PackedPuzzle.SOLVED;
+        while (moveBefore != 0) {
+            result.addFirst(PackedPuzzle.emptyIndex(moveBefore));
+            NodeTable nodes = search.workers[search.owner(moveBefore)].nodes;
+            moveBefore = nodes.getParent(nodes.indexOf(moveBefore));
+        }
+        return result.build();
+    }
+
+    @Override
+    public void setHeuristic(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    @Override
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+
+    @Override
+    public void setSearchListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * State shared by workers of one solve
+     */
+    private static class Search {
+        final Worker[] workers;
+        final AtomicInteger bound = new AtomicInteger(Integer.MAX_VALUE); // moves of best solution found so far
+        final AtomicLong pendingWork; // busy workers plus sent, but not yet received batches
+        final SearchBudget workerBudget;
+        volatile boolean done;
+        volatile boolean exceeded;
+        volatile Throwable failure;
+
+        Search(Heuristic heuristic, int threads, SearchBudget workerBudget) {
+            this.workerBudget = workerBudget;
+            workers = new Worker[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Worker(this, heuristic, i);
+            }
+            pendingWork = new AtomicLong(threads);
+        }
+
+        int owner(long state) {
+            // table slots use low hash bits, so owner is taken from high ones
+            return (int) (((PackedPuzzle.hash(state) >>> 8) & 0xFFFFFFL) % workers.length);
+        }
+
+        void improveBound(int moves) {
+            int current;
+            while (moves < (current = bound.get()) && !bound.compareAndSet(current, moves)) {
+                // retry
+            }
+        }
+    }
+
+    /**
+     * Worker thread, owns states with its hash
+     */
+    private static class Worker implements Runnable {
+        final Search search;
+        final Heuristic heuristic;
+        final int id;
+        final NodeTable nodes = new NodeTable();
+        final ConcurrentLinkedQueue<long[]> inbox = new ConcurrentLinkedQueue<long[]>();
+        final long[][] outgoing; // batch being filled for every worker: state, then parent empty index, depth and heuristic value
+        final int[] outgoingSizes;
+        final SolverStats stats = new SolverStats();
+        OpenList open = new BucketOpenList();
+
+        Worker(Search search, Heuristic heuristic, int id) {
+            this.search = search;
+            this.heuristic = heuristic;
+            this.id = id;
+            this.outgoing = new long[search.workers.length][];
+            this.outgoingSizes = new int[search.workers.length];
+        }
+
+        @Override
+        public void run() {
+            try {
+                work();
+            } catch (Throwable ex) {
+                search.failure = ex;
+                search.done = true;
+            }
+        }
+
+        private void work() {
+            boolean busy = true;
+            int sinceFlush = 0;
+            while (!search.done) {
+                long[] batch = inbox.poll();
+                if (batch != null) {
+                    if (!busy) { // counted as busy before batch stops being counted, so pending work never drops to zero here
+                        search.pendingWork.incrementAndGet();
+                        busy = true;
+                    }
+                    receive(batch);
+                    search.pendingWork.decrementAndGet();
+                    continue;
+                }
+                if (busy && expandBest()) {
+                    if (++sinceFlush >= FLUSH_INTERVAL) {
+                        flush();
+                        sinceFlush = 0;
+                    }
+                    continue;
+                }
+                if (busy) { // nothing left below bound
+                    flush();
+                    busy = false;
+                    if (search.pendingWork.decrementAndGet() == 0) {
+                        search.done = true;
+                    }
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        }
+
+        /**
+         * @return <code>false</code> if open list has no puzzle with heuristic score below bound
+         */
+        private boolean expandBest() {
+            while (!open.isEmpty()) {
+                long state = open.remove();
+                int slot = nodes.indexOf(state);
+                if (nodes.isClosed(slot)) { // outdated copy of puzzle, which was later reached with fewer moves
+                    continue;
+                }
+                if (nodes.getScore(slot) >= search.bound.get()) { // rest of open list can't lead to better solution
+                    open = new BucketOpenList();
+                    return false;
+                }
+                if (search.workerBudget.isExceeded(stats.expandedNodes, nodes.size())) {
+                    search.exceeded = true;
+                    search.done = true;
+                    return false;
+                }
+                nodes.close(slot);
+                stats.expandedNodes++;
+                stats.scoreBound = nodes.getScore(slot);
+                int emptyIndex = PackedPuzzle.emptyIndex(state);
+                int depth = nodes.getDepth(slot) + 1;
+                int heuristicValue = nodes.getScore(slot) - nodes.getDepth(slot);
+                int parentEmptyIndex = nodes.getParentEmptyIndex(slot);
+                for (int cellToMove : BoardSize.FIFTEEN.getNeighbours(emptyIndex)) {
+                    if (cellToMove == parentEmptyIndex) { // parent is never reached with fewer moves
+                        continue;
+                    }
+                    long moveAfter = PackedPuzzle.move(state, emptyIndex, cellToMove);
+                    int movedTile = PackedPuzzle.getCell(state, cellToMove);
+                    stats.generatedNodes++;
+                    int heuristicAfter = heuristicValue + stats.heuristicDelta(heuristic, state, movedTile, cellToMove, emptyIndex);
+                    if (depth + heuristicAfter >= search.bound.get()) {
+                        continue;
+                    }
+                    int owner = search.owner(moveAfter);
+                    if (owner == id) {
+                        insert(moveAfter, emptyIndex, depth, heuristicAfter);
+                    } else {
+                        send(owner, moveAfter, emptyIndex, depth, heuristicAfter);
+                    }
+                }
+                stats.updateOpenSize(open.size());
+                return true;
+            }
+            return false;
+        }
+
+        void insert(long state, int parentEmptyIndex, int depth, int heuristicValue) {
+            int slot = nodes.indexOf(state);
+            if (slot >= 0) {
+                stats.duplicateNodes++;
+                if (depth >= nodes.getDepth(slot)) {
+                    return;
+                }
+                nodes.reopen(slot);
+            }
+            int score = depth + heuristicValue;
+            nodes.put(state, parentEmptyIndex, depth, score);
+            if (state == PackedPuzzle.SOLVED) {
+                search.improveBound(depth);
+            } else {
+                open.add(state, depth, score);
+            }
+        }
+
+        private void receive(long[] batch) {
+            for (int i = 0; i < batch.length && batch[i] != 0; i += 2) {
+                long meta = batch[i + 1];
+                insert(batch[i], (byte) meta, (int) (meta >>> 8) & 0xFFFF, (int) (meta >>> 24) & 0xFFFF);
+            }
+        }
+
+        private void send(int owner, long state, int parentEmptyIndex, int depth, int heuristicValue) {
+            long[] batch = outgoing[owner];
+            if (batch == null) {
+                batch = new long[BATCH_NODES * 2];
+                outgoing[owner] = batch;
+            }
+            int size = outgoingSizes[owner];
+            batch[size] = state;
+            batch[size + 1] = (parentEmptyIndex & 0xFFL) | ((long) depth << 8) | ((long) heuristicValue << 24);
+            outgoingSizes[owner] = size + 2;
+            if (size + 2 == batch.length) {
+                flush(owner);
+            }
+        }
+
+        private void flush() {
+            for (int owner = 0; owner < outgoing.length; owner++) {
+                if (outgoingSizes[owner] > 0) {
+                    flush(owner);
+                }
+            }
+        }
+
+        private void flush(int owner) {
+            search.pendingWork.incrementAndGet();
+            search.workers[owner].inbox.add(outgoing[owner]); // not full batch ends with 0 state
+            outgoing[owner] = null;
+            outgoingSizes[owner] = 0;
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package solver;
+
+import java.util.PriorityQueue;
+
+/**
+ * 
+ * Open list backed by {@link PriorityQueue}. Every queued copy of a puzzle keeps the score it was added with,
+ *      so order of the heap doesn't change, when puzzle is later reached with fewer moves and added again
+ *      with lower score. Outdated copy comes out after the new one and is skipped by solver as closed.
+ * 
+ * Kept as reference for {@link BucketOpenList}
+ * 
+ * @author Marius
+ *
+ */
+public class PriorityQueueOpenList implements OpenList {
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<Entry>(25000);
+
+    @Override
+    public void add(long state, int depth, int score) {
+        queue.add(new Entry(state, score));
+    }
+
+    @Override
+    public long remove() {
+        return queue.remove().state;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Queued puzzle with its score at the time it was added
+     */
+    private static final class Entry implements Comparable<Entry> {
+
+        final long state;
+        final int score;
+
+        Entry(long state, int score) {
+            this.state = state;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Integer.compare(score, other.score);
+        }
+
+    }
+
+}
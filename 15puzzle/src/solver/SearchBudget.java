@@ -0,0 +1,158 @@
+package solver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Limits of one search: amount of expanded puzzles, memory of search structures, deadline and cancellation
+ *
+ * Memory is not measured, it's converted to amount of stored puzzles using estimate of {@value #BYTES_PER_NODE} bytes
+ *      per puzzle: node table slots at lowest fill after growth, old arrays copied during growth and open list entry.
+ *      Searches, which store nothing per puzzle (IDA*), are limited only by amount of expanded puzzles.
+ * Deadline and cancellation token are checked only every {@value #CLOCK_CHECK_INTERVAL} expanded puzzles, because
+ *      reading clock costs about as much as expanding a puzzle. Search stops within a fraction of millisecond after them.
+ *      Interrupt of the searching thread cancels search the same way as the token, interrupt flag stays set.
+ *
+ * @author Marius
+ *
+ */
+public class SearchBudget {
+
+    public static final int BYTES_PER_NODE = 80;
+    public static final int CLOCK_CHECK_INTERVAL = 1024;
+
+    public static final SearchBudget UNLIMITED = new SearchBudget(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private static final int CLOCK_CHECK_MASK = CLOCK_CHECK_INTERVAL - 1;
+
+    private final long maxExpandedNodes;
+    private final long maxMemoryBytes;
+    private final long maxStoredNodes;
+    private final boolean hasDeadline;
+    private final long deadlineNanos;
+    private final CancellationToken cancellation;
+
+    /**
+     * @param maxExpandedNodes - max amount of puzzles search can expand, all iterations of search together
+     * @param maxMemoryBytes - max memory of search structures, which are alive at once
+     */
+    public SearchBudget(long maxExpandedNodes, long maxMemoryBytes) {
+        this(maxExpandedNodes, maxMemoryBytes, false, 0, null);
+    }
+
+    private SearchBudget(long maxExpandedNodes, long maxMemoryBytes, boolean hasDeadline, long deadlineNanos,
+            CancellationToken cancellation) {
+        if (maxExpandedNodes < 1 || maxMemoryBytes < BYTES_PER_NODE) {
+            throw new IllegalArgumentException("Budget must allow at least one puzzle");
+        }
+        this.maxExpandedNodes = maxExpandedNodes;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxStoredNodes = maxMemoryBytes / BYTES_PER_NODE;
+        this.hasDeadline = hasDeadline;
+        this.deadlineNanos = deadlineNanos;
+        this.cancellation = cancellation;
+    }
+
+    public static SearchBudget ofNodes(long maxExpandedNodes) {
+        return new SearchBudget(maxExpandedNodes, Long.MAX_VALUE);
+    }
+
+    public static SearchBudget ofMemory(long maxMemoryBytes) {
+        return new SearchBudget(Long.MAX_VALUE, maxMemoryBytes);
+    }
+
+    /**
+     * @return copy of this budget, which also ends after given time from now (or at its own deadline, if that is earlier)
+     */
+    public SearchBudget withTimeout(long timeout, TimeUnit unit) {
+        long timeoutNanos = unit.toNanos(timeout);
+        if (timeoutNanos >= Long.MAX_VALUE >> 1) { // deadline so far away would overflow clock comparison
+            return this;
+        }
+        return withDeadline(System.nanoTime() + timeoutNanos);
+    }
+
+    /**
+     * @param deadlineNanos - {@link System#nanoTime} value, at which search has to stop
+     * @return copy of this budget, which also ends at given deadline (or at its own one, if that is earlier)
+     */
+    public SearchBudget withDeadline(long deadlineNanos) {
+        long deadline = hasDeadline && this.deadlineNanos - deadlineNanos < 0 ? this.deadlineNanos : deadlineNanos;
+        return new SearchBudget(maxExpandedNodes, maxMemoryBytes, true, deadline, cancellation);
+    }
+
+    /**
+     * @param cancellation - token, which stops search when cancelled, replaces token of this budget
+     */
+    public SearchBudget withCancellation(CancellationToken cancellation) {
+        return new SearchBudget(maxExpandedNodes, maxMemoryBytes, hasDeadline, deadlineNanos, cancellation);
+    }
+
+    /**
+     * @param expandedNodes - puzzles expanded so far
+     * @param storedNodes - puzzles currently stored in node tables
+     * @return <code>true</code> if search has to stop
+     */
+    public boolean isExceeded(long expandedNodes, long storedNodes) {
+        if (expandedNodes >= maxExpandedNodes || storedNodes > maxStoredNodes) {
+            return true;
+        }
+        return (expandedNodes & CLOCK_CHECK_MASK) == 0 && (isCancelled() || isPastDeadline());
+    }
+
+    /**
+     * @return <code>true</code> if token is cancelled or current thread is interrupted
+     */
+    public boolean isCancelled() {
+        return cancellation != null && cancellation.isCancelled() || Thread.currentThread().isInterrupted();
+    }
+
+    public boolean isPastDeadline() {
+        return hasDeadline && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * @return part of this budget for one of given amount of searches running at once, with the same deadline
+     *      and cancellation token
+     */
+    public SearchBudget split(int parts) {
+        if (this == UNLIMITED) {
+            return this;
+        }
+        return new SearchBudget(Math.max(1, maxExpandedNodes / parts), Math.max(BYTES_PER_NODE, maxMemoryBytes / parts),
+                hasDeadline, deadlineNanos, cancellation);
+    }
+
+    public long getMaxExpandedNodes() {
+        return maxExpandedNodes;
+    }
+
+    public long getMaxMemoryBytes() {
+        return maxMemoryBytes;
+    }
+
+    public long getMaxStoredNodes() {
+        return maxStoredNodes;
+    }
+
+    /**
+     * @return token of this budget, or <code>null</code> if search can't be cancelled
+     */
+    public CancellationToken getCancellation() {
+        return cancellation;
+    }
+
+    /**
+     * @return time left until deadline (negative if it has passed), or {@link Long#MAX_VALUE} if there is no deadline
+     */
+    public long getRemainingNanos() {
+        return hasDeadline ? deadlineNanos - System.nanoTime() : Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchBudget [maxExpandedNodes=" + maxExpandedNodes + ", maxMemoryBytes=" + maxMemoryBytes
+                + (hasDeadline ? ", remainingNanos=" + getRemainingNanos() : "") + "]";
+    }
+
+}
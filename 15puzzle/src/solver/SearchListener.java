@@ -0,0 +1,37 @@
+package solver;
+
+import puzzle.Puzzle;
+
+/**
+ *
+ * Receives progress of searches made by {@link Solver}, on thread, which called {@link Solver#solve}
+ *
+ * Solver without listener doesn't check anything for it except one <code>null</code> test per expanded puzzle.
+ * Given stats object is the one solver is filling, so it should be read only during the call.
+ *
+ * @author Marius
+ *
+ */
+public interface SearchListener {
+
+    /**
+     * Amount of expanded puzzles between {@link #searchProgress} calls
+     */
+    public static final long PROGRESS_INTERVAL = 25000;
+
+    public default void searchStarted(Puzzle puzzle) {
+    }
+
+    /**
+     * Called every {@link #PROGRESS_INTERVAL} expanded puzzles, by IDA* - when new iteration starts
+     */
+    public default void searchProgress(SolverStats stats) {
+    }
+
+    /**
+     * @param stats - final stats of search, {@link SolverStats#getSolutionMoves} is -1 if no solution was found
+     */
+    public default void searchFinished(SolverStats stats) {
+    }
+
+}
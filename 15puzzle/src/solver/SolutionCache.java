@@ -0,0 +1,241 @@
+package solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import puzzle.BoardSize;
+import puzzle.MoveSequence;
+import puzzle.PackedPuzzle;
+import puzzle.Puzzle;
+import puzzle.SmallPackedPuzzle;
+
+/**
+ *
+ * Bounded cache of optimal solutions, shared by all threads, least recently used puzzles are evicted first
+ *
+ * Every puzzle of an optimal solution is solved optimally by the rest of it, so one stored solution answers
+ *      queries of all its puzzles. Solution is kept once as {@link MoveSequence}, every one of its puzzles
+ *      is a key (packed cells, see {@link Puzzle#getCells}) with index of its first move.
+ * Only 8-puzzles and 15-puzzles are cached, as their whole state fits one <code>long</code>
+ *      (3x3 state can never be equal to 4x4 one, so both sizes share keys).
+ *
+ * File layout (big endian): magic, amount of solutions, then for every solution (least recently used first)
+ *      board size ordinal (byte), packed cells of its first puzzle, amount of moves and packed moves.
+ *      Loading adds all puzzles of saved solutions, including ones evicted before saving.
+ *
+ * @author Marius
+ *
+ */
+public class SolutionCache {
+
+    static final int MAGIC = 0x534f4c31; // "SOL1"
+
+    private static final BoardSize[] SIZES = BoardSize.values();
+
+    private final int capacity;
+    private final LinkedHashMap<Long, Suffix> suffixes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param capacity - max amount of cached puzzles
+     */
+    public SolutionCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.suffixes = new LinkedHashMap<Long, Suffix>(16, 0.75f, true) { // access order
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Suffix> eldest) {
+                if (size() <= SolutionCache.this.capacity) {
+                    return false;
+                }
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Loads cache from given file, creates empty one if file doesn't exist
+     * @param capacity - max amount of cached puzzles, if file has more, least recently used ones are dropped
+     */
+    public static SolutionCache loadOrCreate(Path file, int capacity) throws IOException {
+        SolutionCache cache = new SolutionCache(capacity);
+        if (Files.exists(file)) {
+            cache.load(file);
+        }
+        return cache;
+    }
+
+    /**
+     * @return optimal solution of given puzzle, or <code>null</code> if it's not cached
+     */
+    public MoveSequence get(Puzzle puzzle) {
+        if (!isCacheable(puzzle)) {
+            return null;
+        }
+        Suffix suffix;
+        synchronized (this) {
+            suffix = suffixes.get(puzzle.getCells());
+            if (suffix == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+        }
+        return suffix.solution.suffix(suffix.firstMove);
+    }
+
+    /**
+     * Adds all puzzles of given solution, which aren't cached yet
+     * @param solution - optimal solution
+     */
+    public void put(MoveSequence solution) {
+        if (!isCacheable(solution.getBoardSize())) {
+            return;
+        }
+        Puzzle start = solution.getStart();
+        add(solution, start.getCells(), start.getEmptyIndex());
+    }
+
+    private synchronized void add(MoveSequence solution, long cells, int emptyIndex) {
+        BoardSize size = solution.getBoardSize();
+        for (int move = 0; ; move++) {
+            Long key = cells;
+            if (suffixes.get(key) == null) { // get, so already cached puzzle becomes recently used too
+                suffixes.put(key, new Suffix(solution, move));
+            }
+            if (move == solution.getMoveCount()) {
+                return;
+            }
+            int tileIndex = emptyIndex + size.getNeighbourOffset(solution.getDirection(move));
+            cells = size == BoardSize.EIGHT ? SmallPackedPuzzle.move((int) cells, emptyIndex, tileIndex)
+                    : PackedPuzzle.move(cells, emptyIndex, tileIndex);
+            emptyIndex = tileIndex;
+        }
+    }
+
+    /**
+     * Writes solutions of all cached puzzles to given file
+     */
+    public void save(Path file) throws IOException {
+        List<MoveSequence> solutions = new ArrayList<MoveSequence>();
+        synchronized (this) {
+            Set<MoveSequence> added = Collections.newSetFromMap(new IdentityHashMap<MoveSequence, Boolean>());
+            for (Suffix suffix : suffixes.values()) {
+                if (added.add(suffix.solution)) {
+                    solutions.add(suffix.solution);
+                }
+            }
+        }
+        try (OutputStream stream = Files.newOutputStream(file);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(solutions.size());
+            for (MoveSequence solution : solutions) {
+                out.writeByte(solution.getBoardSize().ordinal());
+                out.writeLong(solution.getStart().getCells());
+                out.writeInt(solution.getMoveCount());
+                out.write(solution.getPackedMoves());
+            }
+        }
+    }
+
+    private void load(Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a solution cache file: " + file);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int size = in.readByte();
+                if (size < 0 || size >= SIZES.length || !isCacheable(SIZES[size])) {
+                    throw new IOException("Solution cache file is damaged: " + file);
+                }
+                long cells = in.readLong();
+                int length = in.readInt();
+                if (length < 0) {
+                    throw new IOException("Solution cache file is damaged: " + file);
+                }
+                byte[] moves = new byte[MoveSequence.packedLength(length)];
+                in.readFully(moves);
+                Puzzle start = SIZES[size] == BoardSize.EIGHT ? SmallPackedPuzzle.toPuzzle((int) cells) : new Puzzle(cells);
+                add(new MoveSequence(start, moves, length), cells, start.getEmptyIndex());
+            }
+        }
+    }
+
+    /**
+     * @return amount of cached puzzles
+     */
+    public synchronized int size() {
+        return suffixes.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return amount of puzzles dropped to keep cache size within capacity
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SolutionCache [size=" + suffixes.size() + ", capacity=" + capacity + ", hits=" + hits
+                + ", misses=" + misses + ", evictions=" + evictions + "]";
+    }
+
+    private static boolean isCacheable(Puzzle puzzle) {
+        return isCacheable(puzzle.getSize());
+    }
+
+    private static boolean isCacheable(BoardSize size) {
+        return size != BoardSize.TWENTY_FOUR;
+    }
+
+    /**
+     * Cached puzzle: solution it belongs to and index of its first move
+     */
+    private static class Suffix {
+        final MoveSequence solution;
+        final int firstMove;
+
+        Suffix(MoveSequence solution, int firstMove) {
+            this.solution = solution;
+            this.firstMove = firstMove;
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package solver;
+
+import puzzle.MoveSequence;
+import puzzle.Puzzle;
+
+/**
+ *
+ * Outcome of {@link Solver#solve(Puzzle, SearchBudget)}: solution (if any), how search ended
+ *      and whether solution is proven to be the shortest one
+ *
+ * Search stopped before solving still tells how far it got: score bound it reached and amount of expanded puzzles.
+ *
+ * @author Marius
+ *
+ */
+public class SolveResult {
+
+    public enum Status {
+        /**
+         * Search finished, solution is found
+         */
+        SOLVED,
+        /**
+         * Puzzle can't be solved
+         */
+        UNSOLVABLE,
+        /**
+         * Search used up amount of puzzles or memory of {@link SearchBudget}, solution is the best one found before
+         *      (anytime search) or <code>null</code>
+         */
+        BUDGET_EXCEEDED,
+        /**
+         * Search reached deadline of {@link SearchBudget}, solution is the best one found before or <code>null</code>
+         */
+        TIMED_OUT,
+        /**
+         * Cancellation token of {@link SearchBudget} was cancelled or thread of search was interrupted,
+         *      solution is the best one found before or <code>null</code>
+         */
+        CANCELLED
+    }
+
+    private final Status status;
+    private final MoveSequence solution;
+    private final boolean optimal;
+    private final SolverStats stats;
+
+    public SolveResult(Status status, MoveSequence solution, boolean optimal, SolverStats stats) {
+        this.status = status;
+        this.solution = solution;
+        this.optimal = optimal;
+        this.stats = stats;
+    }
+
+    public static SolveResult solved(MoveSequence solution, boolean optimal, SolverStats stats) {
+        return new SolveResult(Status.SOLVED, solution, optimal, stats);
+    }
+
+    public static SolveResult unsolvable(SolverStats stats) {
+        return new SolveResult(Status.UNSOLVABLE, null, false, stats);
+    }
+
+    /**
+     * @param budget - budget, which stopped search, tells the reason
+     * @param bestSolution - best solution found before budget ran out, or <code>null</code>
+     */
+    public static SolveResult stopped(SearchBudget budget, MoveSequence bestSolution, SolverStats stats) {
+        Status status = budget.isCancelled() ? Status.CANCELLED
+                : budget.isPastDeadline() ? Status.TIMED_OUT : Status.BUDGET_EXCEEDED;
+        return new SolveResult(status, bestSolution, false, stats);
+    }
+
+    public static SolveResult cancelled(SolverStats stats) {
+        return new SolveResult(Status.CANCELLED, null, false, stats);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return list of puzzles from given one to solved (replayed on demand), or <code>null</code> if no solution was found
+     */
+    public MoveSequence getSolution() {
+        return solution;
+    }
+
+    /**
+     * @return amount of moves of solution, or -1 if no solution was found
+     */
+    public int getMoves() {
+        return solution == null ? -1 : solution.getMoveCount();
+    }
+
+    /**
+     * @return <code>true</code> if no shorter solution exists
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * @return heuristic score reached by search (see {@link SolverStats#getScoreBound}), for A*, IDA* and bidirectional
+     *      search no solution is shorter than it
+     */
+    public int getScoreBound() {
+        return stats.getScoreBound();
+    }
+
+    /**
+     * @return amount of puzzles expanded before search ended
+     */
+    public long getExpandedNodes() {
+        return stats.getExpandedNodes();
+    }
+
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return "SolveResult [status=" + status + ", moves=" + getMoves() + ", optimal=" + optimal
+                + ", scoreBound=" + getScoreBound() + ", expandedNodes=" + getExpandedNodes() + "]";
+    }
+
+}
@@ -0,0 +1,59 @@
+package solver;
+
+import java.util.List;
+
+import puzzle.Puzzle;
+import solver.heuristics.Heuristic;
+
+/**
+ * 
+ * Search algorithm for finding 15-puzzle solution
+ * 
+ * @author Marius
+ *
+ */
+public interface Solver {
+
+    /**
+     * @param puzzle - puzzle to solve
+     * 
+     * @return list of puzzles from given one to solved, or <code>null</code> if it couldn't solve it
+     */
+    public default List<Puzzle> solve(Puzzle puzzle) {
+        return solve(puzzle, SearchBudget.UNLIMITED).getSolution();
+    }
+
+    /**
+     * @param puzzle - puzzle to solve
+     * @param budget - limits of search, when any of them is reached search stops and returns what it has found
+     * 
+     * @return solution with its status
+     */
+    public SolveResult solve(Puzzle puzzle, SearchBudget budget);
+
+    /**
+     * @param heuristic - estimate of moves to solved puzzle, ignored by solvers with their own exact distances
+     *      or built-in heuristic (their {@link #getHeuristic} returns <code>null</code>)
+     */
+    public void setHeuristic(Heuristic heuristic);
+
+    public Heuristic getHeuristic();
+
+    /**
+     * @param listener - receives progress of every search, <code>null</code> turns reporting off
+     */
+    public void setSearchListener(SearchListener listener);
+
+    /**
+     * @return counters of last (or currently running) {@link #solve} call
+     */
+    public SolverStats getStats();
+
+    /**
+     * @param verbose - if <code>true</code> solving progress is printed to standard output
+     */
+    public default void setVerbose(boolean verbose) {
+        setSearchListener(verbose ? new ConsoleSearchListener() : null);
+    }
+
+}
@@ -0,0 +1,174 @@
+package solver;
+
+import java.util.List;
+
+import puzzle.Puzzle;
+import solver.heuristics.Heuristic;
+
+/**
+ *
+ * Counters of one search, filled by solver while it runs (see {@link Solver#getStats})
+ *
+ * Heuristic time is measured only for every {@value #HEURISTIC_SAMPLE_INTERVAL}-th evaluation and extrapolated,
+ *      because reading clock around every evaluation would cost more than most heuristics. Sampled evaluation is
+ *      repeated {@value #SAMPLE_REPEATS} times, so clock reading doesn't dominate its measured time.
+ *
+ * @author Marius
+ *
+ */
+public class SolverStats {
+
+    static final int HEURISTIC_SAMPLE_INTERVAL = 4096;
+    static final int SAMPLE_REPEATS = 16;
+    private static final int HEURISTIC_SAMPLE_MASK = HEURISTIC_SAMPLE_INTERVAL - 1;
+
+    long expandedNodes;
+    long generatedNodes;
+    long duplicateNodes;
+    int peakOpenSize;
+    int peakNodeTableSize;
+    int scoreBound;
+
+    private long heuristicCalls;
+    private long heuristicSamples;
+    private long sampledHeuristicNanos;
+    private long startNanos;
+    private long elapsedNanos = -1;
+    private int solutionMoves = -1;
+
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    void finish(List<Puzzle> solution) {
+        elapsedNanos = System.nanoTime() - startNanos;
+        solutionMoves = solution == null ? -1 : solution.size() - 1;
+    }
+
+    /**
+     * Counts heuristic evaluation and measures time of sampled ones
+     * @return {@link Heuristic#delta}
+     */
+    int heuristicDelta(Heuristic heuristic, long cells, int movedTile, int from, int to) {
+        if ((heuristicCalls++ & HEURISTIC_SAMPLE_MASK) != 0) {
+            return heuristic.delta(cells, movedTile, from, to);
+        }
+        long started = System.nanoTime();
+        int delta = 0;
+        for (int i = 0; i < SAMPLE_REPEATS; i++) {
+            delta |= heuristic.delta(cells, movedTile, from, to); // same value every time, but calls can't be dropped
+        }
+        sampledHeuristicNanos += System.nanoTime() - started;
+        heuristicSamples++;
+        return delta;
+    }
+
+    void updateOpenSize(int size) {
+        if (size > peakOpenSize) {
+            peakOpenSize = size;
+        }
+    }
+
+    void updateNodeTableSize(int size) {
+        if (size > peakNodeTableSize) {
+            peakNodeTableSize = size;
+        }
+    }
+
+    /**
+     * Adds counters of search, which was part of this one (worker thread or search direction). Peak sizes are summed,
+     *      so they are upper bounds of memory used at once
+     */
+    void add(SolverStats other) {
+        expandedNodes += other.expandedNodes;
+        generatedNodes += other.generatedNodes;
+        duplicateNodes += other.duplicateNodes;
+        peakOpenSize += other.peakOpenSize;
+        peakNodeTableSize += other.peakNodeTableSize;
+        heuristicCalls += other.heuristicCalls;
+        heuristicSamples += other.heuristicSamples;
+        sampledHeuristicNanos += other.sampledHeuristicNanos;
+    }
+
+    /**
+     * @return puzzles taken from open list and expanded (considered moves)
+     */
+    public long getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * @return puzzles made by moves from expanded ones, including duplicates
+     */
+    public long getGeneratedNodes() {
+        return generatedNodes;
+    }
+
+    /**
+     * @return generated puzzles, which were already known to search (reached before by same or more moves,
+     *      or improved copies of known ones)
+     */
+    public long getDuplicateNodes() {
+        return duplicateNodes;
+    }
+
+    /**
+     * @return largest amount of puzzles waiting in open list, 0 for searches without open list (IDA*)
+     */
+    public int getPeakOpenSize() {
+        return peakOpenSize;
+    }
+
+    /**
+     * @return largest amount of puzzles in node (closed) table, 0 for searches without node table (IDA*)
+     */
+    public int getPeakNodeTableSize() {
+        return peakNodeTableSize;
+    }
+
+    /**
+     * @return heuristic score (f) of puzzles being expanded, or score limit of current IDA* iteration
+     */
+    public int getScoreBound() {
+        return scoreBound;
+    }
+
+    /**
+     * @return length of found solution, or -1 if search didn't finish or found no solution
+     */
+    public int getSolutionMoves() {
+        return solutionMoves;
+    }
+
+    /**
+     * @return time since search started, or its total time if it has finished
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos >= 0 ? elapsedNanos : System.nanoTime() - startNanos;
+    }
+
+    public double getNodesPerSecond() {
+        long elapsed = getElapsedNanos();
+        return elapsed > 0 ? expandedNodes * 1e9 / elapsed : 0;
+    }
+
+    /**
+     * @return estimated part (from 0 to 1) of search time spent in heuristic evaluation
+     */
+    public double getHeuristicTimeShare() {
+        long elapsed = getElapsedNanos();
+        if (heuristicSamples == 0 || elapsed <= 0) {
+            return 0;
+        }
+        double nanosPerCall = (double) sampledHeuristicNanos / (heuristicSamples * SAMPLE_REPEATS);
+        return Math.min(1, nanosPerCall * heuristicCalls / elapsed);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("expanded %d, generated %d, duplicates %d, peak open %d, peak nodes %d, "
+                + "%.1f ms, %.0f nodes/s, heuristic %.0f%%", expandedNodes, generatedNodes, duplicateNodes,
+                peakOpenSize, peakNodeTableSize, getElapsedNanos() / 1e6, getNodesPerSecond(), getHeuristicTimeShare() * 100);
+    }
+
+}
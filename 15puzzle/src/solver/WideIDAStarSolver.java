@@ -0,0 +1,287 @@
+package solver;
+
+import puzzle.BoardSize;
+import puzzle.MoveSequence;
+import puzzle.Puzzle;
+import puzzle.PuzzleService;
+import puzzle.WidePackedPuzzle;
+import solver.heuristics.Heuristic;
+
+/**
+ *
+ * Iterative deepening A* (IDA*) search algorithm for finding 24-puzzle solution
+ *
+ * Works the same way as {@link IDAStarSolver}: memory use depends only on solution length, as all searches move
+ *      and undo moves on a single board ({@link WidePackedPuzzle}). 24-puzzle has too many states for any search,
+ *      which stores them, so this is the only solver of it.
+ *
+ * Heuristic is linear conflict (Manhattan distance plus two moves for every cell, which has to leave its line to let
+ *      others pass), updated by every move. Line content is reduced to goal positions of its cells, which belong
+ *      to it (6^5 combinations), so one conflict table serves all rows and columns.
+ *
+ * Source - https://en.wikipedia.org/wiki/Iterative_deepening_A*
+ *
+ * @author Marius
+ *
+ */
+public class WideIDAStarSolver implements Solver {
+
+    private static final int FOUND = -1;
+    private static final int EXCEEDED = -2;
+    private static final int NO_PARENT = -1;
+    private static final int EDGE = WidePackedPuzzle.EDGE;
+    private static final int LINE_DIGITS = EDGE + 1; // 0 for cells of other lines, goal position + 1 for own ones
+
+    /**
+     * Manhattan distance of every cell value from every index to its place in solved puzzle: [value][index]
+     */
+    private static final int[][] DISTANCES = createDistances();
+    /**
+     * Line digit of every value in every row: [row][value], see {@link #LINE_DIGITS}
+     */
+    private static final int[][] ROW_DIGITS = createLineDigits(true);
+    private static final int[][] COLUMN_DIGITS = createLineDigits(false);
+    /**
+     * Extra moves of every line content, coded by line digits of its cells
+     */
+    private static final byte[] CONFLICTS = createConflicts();
+
+    private PuzzleService puzzleService;
+    private WidePackedPuzzle board;
+    private int[] path = new int[256]; // empty cell index after every move of current search branch
+    private SearchListener listener = new ConsoleSearchListener();
+    private SolverStats stats = new SolverStats();
+    private SearchBudget budget;
+
+    public WideIDAStarSolver(PuzzleService puzzleService) {
+        this.puzzleService = puzzleService;
+    }
+
+    /**
+     * @param puzzle - 24-puzzle to solve
+     * @param budget - limits of search, memory limit doesn't matter, as memory use is tiny
+     *
+     * @return shortest solution, or no solution if budget ran out first
+     */
+    @Override
+    public SolveResult solve(Puzzle puzzle, SearchBudget budget) {
+        if (puzzle.getSize() != BoardSize.TWENTY_FOUR) {
+            throw new IllegalArgumentException("Only 24-puzzle is supported, given " + puzzle.getSize().getName());
+        }
+        stats = new SolverStats();
+        stats.start();
+        if (listener != null) {
+            listener.searchStarted(puzzle);
+        }
+        this.budget = budget;
+        SolveResult result = puzzleService.isSolvable(puzzle) ? iterate(puzzle) : SolveResult.unsolvable(stats);
+        stats.finish(result.getSolution());
+        if (listener != null) {
+            listener.searchFinished(stats);
+        }
+        return result;
+    }
+
+    /**
+     * Runs searches with growing score limit until solution is found
+     */
+    private SolveResult iterate(Puzzle puzzle) {
+        board = new WidePackedPuzzle(puzzle);
+        int startHeuristic = heuristicValue(board);
+        int bound = startHeuristic;
+        while (true) {
+            if (bound >= path.length) {
+                path = new int[bound << 1];
+            }
+            stats.scoreBound = bound;
+            if (listener != null) {
+                listener.searchProgress(stats);
+            }
+            int result = search(0, bound, NO_PARENT, startHeuristic);
+            if (result == FOUND) {
+                return SolveResult.solved(buildResult(puzzle), true, stats);
+            }
+            if (result == EXCEEDED) {
+                return SolveResult.stopped(budget, null, stats);
+            }
+            if (result == Integer.MAX_VALUE) {
+                return SolveResult.unsolvable(stats);
+            }
+            bound = result;
+        }
+    }
+
+    /**
+     * Depth first search from current board state, see {@link IDAStarSolver}
+     * @return {@link #FOUND} if board got solved (board is left solved), {@link #EXCEEDED} if budget ran out
+     *      (board is left as it was), otherwise lowest heuristic score, which exceeded limit
+     */
+    private int search(int depth, int bound, int previousEmpty, int heuristicValue) {
+        int score = depth + heuristicValue;
+        if (score > bound) {
+            return score;
+        }
+        if (budget.isExceeded(stats.expandedNodes, 0)) {
+            return EXCEEDED;
+        }
+        stats.expandedNodes++;
+        if (board.isSolved()) {
+            path[depth] = NO_PARENT;
+            return FOUND;
+        }
+        int min = Integer.MAX_VALUE;
+        int emptyIndex = board.getEmptyIndex();
+        for (int cellToMove : BoardSize.TWENTY_FOUR.getNeighbours(emptyIndex)) {
+            if (cellToMove == previousEmpty) {
+                continue;
+            }
+            stats.generatedNodes++;
+            // horizontal move changes only columns of both cells, vertical - only rows
+            boolean horizontal = cellToMove / EDGE == emptyIndex / EDGE;
+            int movedTile = board.getCell(cellToMove);
+            int conflictsBefore = lineConflicts(cellToMove, emptyIndex, horizontal);
+            board.move(cellToMove);
+            int heuristicAfter = heuristicValue + DISTANCES[movedTile][emptyIndex] - DISTANCES[movedTile][cellToMove]
+                    + lineConflicts(cellToMove, emptyIndex, horizontal) - conflictsBefore;
+            path[depth] = cellToMove;
+            int result = search(depth + 1, bound, emptyIndex, heuristicAfter);
+            if (result == FOUND) {
+                return FOUND;
+            }
+            board.move(emptyIndex); // undo
+            if (result == EXCEEDED) {
+                return EXCEEDED;
+            }
+            if (result < min) {
+                min = result;
+            }
+        }
+        return min;
+    }
+
+    private int heuristicValue(WidePackedPuzzle board) {
+        int distance = 0;
+        for (int i = 0; i < WidePackedPuzzle.CELLS; i++) {
+            distance += DISTANCES[board.getCell(i)][i];
+        }
+        for (int line = 0; line < EDGE; line++) {
+            distance += lineConflict(line, true) + lineConflict(line, false);
+        }
+        return distance;
+    }
+
+    /**
+     * @return conflicts of both columns (horizontal move) or both rows (vertical move) of given cells
+     */
+    private int lineConflicts(int from, int to, boolean horizontal) {
+        if (horizontal) {
+            return lineConflict(from % EDGE, false) + lineConflict(to % EDGE, false);
+        }
+        return lineConflict(from / EDGE, true) + lineConflict(to / EDGE, true);
+    }
+
+    private int lineConflict(int line, boolean row) {
+        int code = 0;
+        for (int i = EDGE - 1; i >= 0; i--) {
+            if (row) {
+                code = code * LINE_DIGITS + ROW_DIGITS[line][board.getCell(line * EDGE + i)];
+            } else {
+                code = code * LINE_DIGITS + COLUMN_DIGITS[line][board.getCell(i * EDGE + line)];
+            }
+        }
+        return CONFLICTS[code];
+    }
+
+    /**
+     * Method collects moves of found branch from given puzzle and returns them as {@link MoveSequence}
+     */
+    private MoveSequence buildResult(Puzzle start) {
+        MoveSequence.Builder result = new MoveSequence.Builder(start);
+        result.addLast(start.getEmptyIndex());
+        for (int i = 0; path[i] != NO_PARENT; i++) {
+            result.addLast(path[i]);
+        }
+        return result.build();
+    }
+
+    private static int[][] createDistances() {
+        int[][] distances = new int[WidePackedPuzzle.CELLS][WidePackedPuzzle.CELLS];
+        for (int value = 1; value < WidePackedPuzzle.CELLS; value++) { // empty cell is not counted
+            int correct = value - 1;
+            for (int i = 0; i < WidePackedPuzzle.CELLS; i++) {
+                distances[value][i] = Math.abs(correct / EDGE - i / EDGE) + Math.abs(correct % EDGE - i % EDGE);
+            }
+        }
+        return distances;
+    }
+
+    private static int[][] createLineDigits(boolean rows) {
+        int[][] digits = new int[EDGE][WidePackedPuzzle.CELLS];
+        for (int value = 1; value < WidePackedPuzzle.CELLS; value++) {
+            int correct = value - 1;
+            int line = rows ? correct / EDGE : correct % EDGE;
+            digits[line][value] = 1 + (rows ? correct % EDGE : correct / EDGE);
+        }
+        return digits;
+    }
+
+    /**
+     * Conflicts of line are two moves for every own cell outside of longest sequence, which is already in correct order
+     */
+    private static byte[] createConflicts() {
+        int combinations = 1;
+        for (int i = 0; i < EDGE; i++) {
+            combinations *= LINE_DIGITS;
+        }
+        byte[] conflicts = new byte[combinations];
+        int[] order = new int[EDGE];
+        for (int code = 0; code < combinations; code++) {
+            int length = 0;
+            for (int i = 0, rest = code; i < EDGE; i++, rest /= LINE_DIGITS) {
+                if (rest % LINE_DIGITS > 0) {
+                    order[length++] = rest % LINE_DIGITS;
+                }
+            }
+            int longest = 0;
+            int[] longestEnding = new int[length];
+            for (int i = 0; i < length; i++) {
+                longestEnding[i] = 1;
+                for (int j = 0; j < i; j++) {
+                    if (order[j] < order[i] && longestEnding[j] + 1 > longestEnding[i]) {
+                        longestEnding[i] = longestEnding[j] + 1;
+                    }
+                }
+                longest = Math.max(longest, longestEnding[i]);
+            }
+            conflicts[code] = (byte) (2 * (length - longest));
+        }
+        return conflicts;
+    }
+
+    /**
+     * Does nothing, heuristic is built into the search (linear conflict of 5x5 board) and given one is ignored,
+     *      other heuristics work only on 15-puzzle
+     */
+    @Override
+    public void setHeuristic(Heuristic heuristic) {
+    }
+
+    /**
+     * @return <code>null</code>, heuristic is built into the search
+     */
+    @Override
+    public Heuristic getHeuristic() {
+        return null;
+    }
+
+    @Override
+    public void setSearchListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public SolverStats getStats() {
+        return stats;
+    }
+
+}
@@ -0,0 +1,138 @@
+package solver.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import puzzle.BoardSize;
+import puzzle.PackedPuzzle;
+import puzzle.Puzzle;
+
+/**
+ * 
+ * Reads puzzles for {@link BatchSolver} from text, one puzzle per line
+ * 
+ * Line holds 9, 16 or 25 values (3x3, 4x4 or 5x5 puzzle, left to right, top to bottom, 0 is empty cell)
+ *      separated by spaces or commas.
+ * Empty lines and lines starting with # are skipped. Malformed line throws {@link IllegalArgumentException}
+ *      with its line number, reading goes on from the next line. If one board size is required, puzzle of other
+ *      size than the first one, or of size which isn't allowed, is malformed too.
+ * 
+ * @author Marius
+ *
+ */
+public class BatchInput implements Iterator<Puzzle> {
+
+    private final BufferedReader reader;
+    private Puzzle next;
+    private long lineNumber;
+    private Collection<BoardSize> allowedSizes; // null if puzzles of all sizes are read
+    private BoardSize size; // of the first puzzle, if one size is required
+
+    public BatchInput(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Makes puzzles of other board size than the first one malformed, for outputs of one board size
+     * @param allowedSizes - board sizes supported by output
+     */
+    public void requireOneSize(Collection<BoardSize> allowedSizes) {
+        this.allowedSizes = allowedSizes;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Puzzle next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Puzzle puzzle = next;
+        next = null;
+        return puzzle;
+    }
+
+    private Puzzle readNext() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    try {
+                        return checkSize(parse(line));
+                    } catch (IllegalArgumentException ex) {
+                        throw new IllegalArgumentException(String.format("Line %d: %s", lineNumber, ex.getMessage()));
+                    }
+                }
+            }
+            return null;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private Puzzle checkSize(Puzzle puzzle) {
+        if (allowedSizes == null) {
+            return puzzle;
+        }
+        if (!allowedSizes.contains(puzzle.getSize())) {
+            throw new IllegalArgumentException(String.format("%s isn't supported by output", puzzle.getSize().getName()));
+        }
+        if (size == null) {
+            size = puzzle.getSize();
+        } else if (puzzle.getSize() != size) {
+            throw new IllegalArgumentException(String.format("expected %s puzzle like the first one, found %s",
+                    size.getName(), puzzle.getSize().getName()));
+        }
+        return puzzle;
+    }
+
+    /**
+     * @param line - trimmed line of values
+     * @throws IllegalArgumentException if line isn't a valid puzzle
+     */
+    public static Puzzle parse(String line) {
+        String[] values = line.split("[\\s,]+");
+        BoardSize size;
+        try {
+            size = BoardSize.ofCells(values.length);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(String.format("expected 9, 16 or 25 values, found %d", values.length));
+        }
+        long cells = 0; // 15-puzzle is packed directly, other sizes are collected to list
+        List<Integer> list = size == BoardSize.FIFTEEN ? null : new ArrayList<Integer>(values.length);
+        int used = 0;
+        for (int i = 0; i < values.length; i++) {
+            int value;
+            try {
+                value = Integer.parseInt(values[i]);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException(String.format("invalid value \"%s\"", values[i]));
+            }
+            if (value < 0 || value >= size.getCells() || (used & (1 << value)) != 0) {
+                throw new IllegalArgumentException(String.format("values must be unique set from 0 to %d", size.getCells() - 1));
+            }
+            used |= 1 << value;
+            if (list == null) {
+                cells = PackedPuzzle.setCell(cells, i, value);
+            } else {
+                list.add(value);
+            }
+        }
+        return list == null ? new Puzzle(cells) : Puzzle.of(list);
+    }
+
+}
@@ -0,0 +1,121 @@
+package solver.batch;
+
+import puzzle.MoveSequence;
+import puzzle.Puzzle;
+import solver.SolveResult;
+
+/**
+ * 
+ * Outcome of one puzzle solved by {@link BatchSolver}
+ * 
+ * @author Marius
+ *
+ */
+public class BatchResult {
+
+    /**
+     * Negative statuses of {@link #getMovesOrStatus}
+     */
+    public static final int UNSOLVABLE = -1;
+    public static final int FAILED = -2;
+    public static final int BUDGET_EXCEEDED = -3;
+    public static final int TIMED_OUT = -4;
+
+    private final long index;
+    private final Puzzle puzzle;
+    private final SolveResult result;
+    private final long elapsedNanos;
+    private final RuntimeException error;
+
+    public BatchResult(long index, Puzzle puzzle, SolveResult result, long elapsedNanos, RuntimeException error) {
+        this.index = index;
+        this.puzzle = puzzle;
+        this.result = result;
+        this.elapsedNanos = elapsedNanos;
+        this.error = error;
+    }
+
+    /**
+     * @return position of puzzle in input, starting from 0
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * @return solved puzzle, or <code>null</code> if input of puzzle was malformed
+     */
+    public Puzzle getPuzzle() {
+        return puzzle;
+    }
+
+    /**
+     * @return list of puzzles from given one to solved, or <code>null</code> if puzzle is unsolvable, solver ran out
+     *      of budget or failed
+     */
+    public MoveSequence getSolution() {
+        return result == null ? null : result.getSolution();
+    }
+
+    /**
+     * @return amount of solution moves, or {@link #UNSOLVABLE}, {@link #FAILED}, {@link #BUDGET_EXCEEDED}
+     *      (cancelled too) or {@link #TIMED_OUT} if no solution was found
+     */
+    public int getMovesOrStatus() {
+        if (result == null) {
+            return FAILED;
+        }
+        if (result.getSolution() != null) {
+            return result.getMoves();
+        }
+        switch (result.getStatus()) {
+            case UNSOLVABLE:
+                return UNSOLVABLE;
+            case TIMED_OUT:
+                return TIMED_OUT;
+            default:
+                return BUDGET_EXCEEDED;
+        }
+    }
+
+    /**
+     * @return outcome of solver, or <code>null</code> if solver failed
+     */
+    public SolveResult getResult() {
+        return result;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return exception thrown by solver or by input of malformed puzzle, or <code>null</code> if solver
+     *      finished normally
+     */
+    public RuntimeException getError() {
+        return error;
+    }
+
+    /**
+     * @return result line (tab separated): puzzle index, amount of moves or status, solving time in milliseconds,
+     *      values of moved cells in solution order or error of failed solver
+     */
+    public String toLine() {
+        StringBuilder line = new StringBuilder();
+        line.append(index).append('\t').append(getMovesOrStatus());
+        line.append('\t').append(elapsedNanos / 1000000);
+        MoveSequence solution = getSolution();
+        if (solution != null) {
+            line.append('\t');
+            int[] tiles = solution.getMovedTiles();
+            for (int i = 0; i < tiles.length; i++) {
+                line.append(i == 0 ? "" : " ").append(tiles[i]);
+            }
+        } else if (error != null) {
+            line.append('\t').append(error);
+        }
+        return line.toString();
+    }
+
+}
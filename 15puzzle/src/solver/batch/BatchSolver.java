@@ -0,0 +1,139 @@
+package solver.batch;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import puzzle.Puzzle;
+import solver.SearchBudget;
+import solver.SolveResult;
+import solver.Solver;
+
+/**
+ * 
+ * Solves stream of puzzles in parallel on given executor
+ * 
+ * Solvers keep state of current search, so every executor thread gets its own solver from factory
+ *      and never shares it. Only limited amount of puzzles is taken from input before their results
+ *      are handed to consumer, so memory usage doesn't depend on input size.
+ * 
+ * @author Marius
+ *
+ */
+public class BatchSolver {
+
+    private final ThreadLocal<Solver> solvers;
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final boolean inputOrder;
+    private SearchBudget budget = SearchBudget.UNLIMITED;
+    private long timeoutNanos = Long.MAX_VALUE;
+
+    /**
+     * @param solverFactory - creates solver for every executor thread
+     * @param executor - executor to solve puzzles on, it's not shut down by this class
+     * @param maxInFlight - max amount of puzzles taken from input, but not yet handed to consumer
+     * @param inputOrder - if <code>true</code> results are handed in input order, otherwise in order of completion
+     */
+    public BatchSolver(Supplier<Solver> solverFactory, ExecutorService executor, int maxInFlight, boolean inputOrder) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in flight puzzles must be positive: " + maxInFlight);
+        }
+        this.solvers = ThreadLocal.withInitial(solverFactory);
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.inputOrder = inputOrder;
+    }
+
+    /**
+     * @param budget - limits of search for every puzzle
+     */
+    public void setBudget(SearchBudget budget) {
+        this.budget = budget;
+    }
+
+    public SearchBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * @param timeout - max time of solving one puzzle, counted from start of its search
+     */
+    public void setTimeout(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive: " + timeout);
+        }
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    public long getTimeout(TimeUnit unit) {
+        return unit.convert(timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Solves all given puzzles, returns when last result is handed to consumer
+     * @param puzzles - puzzles to solve, read only from calling thread; {@link IllegalArgumentException} thrown
+     *      by it for malformed puzzle is handed to consumer as failed result of that puzzle and reading goes on
+     * @param results - receives result of every puzzle, called only from calling thread
+     * @return amount of solved puzzles
+     */
+    public long solve(Iterator<Puzzle> puzzles, Consumer<BatchResult> results) throws InterruptedException {
+        BlockingQueue<BatchResult> completed = new LinkedBlockingQueue<BatchResult>();
+        Map<Long, BatchResult> waiting = new HashMap<Long, BatchResult>(); // completed out of input order
+        ArrayDeque<BatchResult> ready = new ArrayDeque<BatchResult>();
+        long submitted = 0;
+        long handed = 0;
+        boolean more = true;
+        while (more || handed < submitted) {
+            if (more && submitted - handed < maxInFlight) {
+                long index = submitted;
+                try {
+                    more = puzzles.hasNext();
+                    if (more) {
+                        Puzzle puzzle = puzzles.next();
+                        submitted++;
+                        executor.execute(() -> completed.add(solve(index, puzzle)));
+                    }
+                } catch (IllegalArgumentException ex) {
+                    submitted++;
+                    completed.add(new BatchResult(index, null, null, 0, ex));
+                }
+                continue;
+            }
+            BatchResult result = completed.take();
+            if (!inputOrder) {
+                ready.add(result);
+            } else {
+                waiting.put(result.getIndex(), result);
+                for (BatchResult next; (next = waiting.remove(handed + ready.size())) != null;) {
+                    ready.add(next);
+                }
+            }
+            while (!ready.isEmpty()) {
+                results.accept(ready.remove());
+                handed++;
+            }
+        }
+        return handed;
+    }
+
+    private BatchResult solve(long index, Puzzle puzzle) {
+        long started = System.nanoTime();
+        try {
+            SearchBudget puzzleBudget = timeoutNanos == Long.MAX_VALUE ? budget : budget.withTimeout(timeoutNanos, TimeUnit.NANOSECONDS);
+            SolveResult result = solvers.get().solve(puzzle, puzzleBudget);
+            return new BatchResult(index, puzzle, result, System.nanoTime() - started, null);
+        } catch (Throwable ex) { // result is always added, otherwise calling thread waits for it forever
+            RuntimeException error = ex instanceof RuntimeException ? (RuntimeException) ex : new IllegalStateException(ex);
+            return new BatchResult(index, puzzle, null, System.nanoTime() - started, error);
+        }
+    }
+
+}
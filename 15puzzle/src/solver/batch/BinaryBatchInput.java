@@ -0,0 +1,152 @@
+package solver.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import puzzle.BoardSize;
+import puzzle.PackedPuzzle;
+import puzzle.Puzzle;
+import puzzle.SmallPackedPuzzle;
+
+/**
+ *
+ * Reads puzzles for {@link BatchSolver} from binary file, written by {@link BinaryBatchOutput}
+ *
+ * File is header (see {@link BinaryFormat}) and 8 bytes per puzzle: packed cells of 4x4 puzzle ({@link PackedPuzzle})
+ *      or of 3x3 puzzle ({@link SmallPackedPuzzle}, sign extended). File is read through memory mapped windows,
+ *      so files larger than memory are streamed and {@link #nextCells} doesn't create any objects.
+ *
+ * @author Marius
+ *
+ */
+public class BinaryBatchInput implements Iterator<Puzzle>, Closeable {
+
+    private static final long WINDOW_SIZE = 64L << 20;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final BoardSize size;
+    private final long count;
+    private MappedByteBuffer window;
+    private long windowStart; // index of first puzzle in window
+    private long index;
+
+    public BinaryBatchInput(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = BinaryFormat.readHeader(channel, BinaryFormat.PUZZLES_MAGIC, file);
+            size = BinaryFormat.size(header.getInt(), file);
+            count = header.getLong();
+            if (count < 0 || channel.size() != BinaryFormat.HEADER_SIZE + count * BinaryFormat.PUZZLE_SIZE) {
+                throw new IOException("Binary batch file is damaged or incomplete: " + file);
+            }
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @return <code>true</code> if given file starts as binary puzzle file
+     */
+    public static boolean isBinary(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == BinaryFormat.PUZZLES_MAGIC;
+        }
+    }
+
+    public BoardSize getBoardSize() {
+        return size;
+    }
+
+    /**
+     * @return amount of puzzles in file
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return index < count;
+    }
+
+    @Override
+    public Puzzle next() {
+        long cells = nextCells();
+        return size == BoardSize.EIGHT ? SmallPackedPuzzle.toPuzzle((int) cells) : new Puzzle(cells);
+    }
+
+    /**
+     * @return packed cells of next puzzle
+     * @throws IllegalArgumentException if cells aren't unique values of board
+     */
+    public long nextCells() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (window == null || index - windowStart == window.capacity() / BinaryFormat.PUZZLE_SIZE) {
+            map();
+        }
+        long cells = window.getLong((int) (index - windowStart) * BinaryFormat.PUZZLE_SIZE);
+        index++; // invalid puzzle is skipped too, so reading can go on
+        if (!isValid(cells)) {
+            throw new IllegalArgumentException(String.format("Puzzle %d: values must be unique set from 0 to %d",
+                    index - 1, size.getCells() - 1));
+        }
+        return cells;
+    }
+
+    private void map() {
+        try {
+            long position = BinaryFormat.HEADER_SIZE + index * BinaryFormat.PUZZLE_SIZE;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, channel.size() - position));
+            windowStart = index;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private boolean isValid(long cells) {
+        if (size == BoardSize.EIGHT) {
+            int small = (int) cells;
+            if (small != cells) {
+                return false;
+            }
+            int used = 0;
+            for (int i = 0; i < SmallPackedPuzzle.CELLS; i++) { // last cell is implied by the others
+                used |= 1 << SmallPackedPuzzle.getCell(small, i);
+            }
+            return used == (1 << SmallPackedPuzzle.CELLS) - 1;
+        }
+        int used = 0;
+        for (int i = 0; i < PackedPuzzle.CELLS; i++) {
+            used |= 1 << PackedPuzzle.getCell(cells, i);
+        }
+        return used == (1 << PackedPuzzle.CELLS) - 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "BinaryBatchInput [file=" + file + ", size=" + size.getName() + ", count=" + count + "]";
+    }
+
+}
@@ -0,0 +1,76 @@
+package solver.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import puzzle.BoardSize;
+import puzzle.Puzzle;
+
+/**
+ *
+ * Writes puzzles to binary file for {@link BinaryBatchInput}
+ *
+ * Puzzles are collected in direct buffer and written by channel when it fills up. Amount of puzzles
+ *      in header is written by {@link #close}, so file isn't readable until writer is closed.
+ *
+ * @author Marius
+ *
+ */
+public class BinaryBatchOutput implements Closeable {
+
+    private final FileChannel channel;
+    private final BoardSize size;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BinaryFormat.BUFFER_SIZE);
+    private long count;
+
+    /**
+     * @param size - board size of all puzzles, 3x3 or 4x4
+     */
+    public BinaryBatchOutput(Path file, BoardSize size) throws IOException {
+        BinaryFormat.size(size.getEdge(), file);
+        this.size = size;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        channel.position(BinaryFormat.HEADER_SIZE);
+    }
+
+    public void write(Puzzle puzzle) throws IOException {
+        if (puzzle.getSize() != size) {
+            throw new IllegalArgumentException("Expected " + size.getName() + ", given " + puzzle.getSize().getName());
+        }
+        writeCells(puzzle.getCells());
+    }
+
+    /**
+     * @param cells - packed cells of puzzle, see {@link Puzzle#getCells}
+     */
+    public void writeCells(long cells) throws IOException {
+        if (!buffer.hasRemaining()) {
+            BinaryFormat.drain(channel, buffer);
+        }
+        buffer.putLong(cells);
+        count++;
+    }
+
+    /**
+     * @return amount of written puzzles
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            BinaryFormat.drain(channel, buffer);
+            BinaryFormat.writeHeader(channel, BinaryFormat.PUZZLES_MAGIC, size, count);
+        } finally {
+            channel.close();
+        }
+    }
+
+}
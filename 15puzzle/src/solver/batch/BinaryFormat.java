@@ -0,0 +1,79 @@
+package solver.batch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import puzzle.BoardSize;
+
+/**
+ *
+ * Constants and header of binary batch files, see {@link BinaryBatchInput} and {@link BinaryResultOutput}
+ *
+ * Header (16 bytes, big endian): magic, board edge, amount of records. Amount is written when file is closed,
+ *      so file of interrupted writer is recognized by amount not matching its size.
+ *
+ * @author Marius
+ *
+ */
+final class BinaryFormat {
+
+    static final int PUZZLES_MAGIC = 0x50424931; // "PBI1"
+    static final int RESULTS_MAGIC = 0x50425232; // "PBR2", 4 bytes amount of moves
+    static final int HEADER_SIZE = 16;
+    static final int PUZZLE_SIZE = 8;
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private BinaryFormat() {
+    }
+
+    /**
+     * @return board size of given edge, only 3x3 and 4x4 boards fit 8 bytes
+     */
+    static BoardSize size(int edge, Path file) throws IOException {
+        if (edge != BoardSize.EIGHT.getEdge() && edge != BoardSize.FIFTEEN.getEdge()) {
+            throw new IOException("Unsupported board edge " + edge + " in " + file);
+        }
+        return BoardSize.ofEdge(edge);
+    }
+
+    /**
+     * Writes header to the start of file, position of channel is not changed
+     */
+    static void writeHeader(FileChannel channel, int magic, BoardSize size, long count) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(magic).putInt(size.getEdge()).putLong(count).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * Reads header from the start of file
+     * @return header, positioned after magic
+     * @throws IOException if file doesn't start with given magic
+     */
+    static ByteBuffer readHeader(FileChannel channel, int magic, Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+        }
+        if (header.hasRemaining() || header.getInt(0) != magic) {
+            throw new IOException("Not a binary batch file: " + file);
+        }
+        header.position(4);
+        return header;
+    }
+
+    /**
+     * Writes whole buffer (from position to limit) and clears it
+     */
+    static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
@@ -0,0 +1,148 @@
+package solver.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+import puzzle.BoardSize;
+import puzzle.MoveSequence;
+import puzzle.Puzzle;
+
+/**
+ *
+ * Reads results written by {@link BinaryResultOutput} through memory mapped windows of file
+ *
+ * Reader is a cursor: {@link #next} moves to the next result, getters read the current one, so reading
+ *      amounts of moves doesn't create any objects.
+ *
+ * @author Marius
+ *
+ */
+public class BinaryResultInput implements Closeable {
+
+    private static final long WINDOW_SIZE = 64L << 20;
+    private static final int RECORD_HEADER_SIZE = 12;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final BoardSize size;
+    private final long count;
+    private MappedByteBuffer window;
+    private long windowStart; // file position of window
+    private long position = BinaryFormat.HEADER_SIZE; // file position of next record
+    private long read;
+    private long index = -1;
+    private int movesOrStatus;
+    private int movesStart; // window position of current packed moves
+
+    public BinaryResultInput(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = BinaryFormat.readHeader(channel, BinaryFormat.RESULTS_MAGIC, file);
+            size = BinaryFormat.size(header.getInt(), file);
+            count = header.getLong();
+            if (count < 0) {
+                throw new IOException("Binary result file is damaged or incomplete: " + file);
+            }
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public BoardSize getBoardSize() {
+        return size;
+    }
+
+    /**
+     * @return amount of results in file
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Moves to the next result
+     * @return <code>false</code> if there are no more results
+     */
+    public boolean next() throws IOException {
+        if (read == count) {
+            return false;
+        }
+        ensureMapped(RECORD_HEADER_SIZE);
+        int offset = (int) (position - windowStart);
+        index = window.getLong(offset);
+        movesOrStatus = window.getInt(offset + 8);
+        int packedLength = movesOrStatus > 0 ? MoveSequence.packedLength(movesOrStatus) : 0;
+        ensureMapped(RECORD_HEADER_SIZE + packedLength);
+        movesStart = (int) (position - windowStart) + RECORD_HEADER_SIZE;
+        position += RECORD_HEADER_SIZE + packedLength;
+        read++;
+        return true;
+    }
+
+    /**
+     * @return index of current result's puzzle in input
+     */
+    public long getIndex() {
+        checkCurrent();
+        return index;
+    }
+
+    /**
+     * @return amount of moves of current result, or negative status, see {@link BatchResult#getMovesOrStatus}
+     */
+    public int getMovesOrStatus() {
+        checkCurrent();
+        return movesOrStatus;
+    }
+
+    /**
+     * @param start - puzzle of current result
+     * @return solution of current result, or <code>null</code> if puzzle wasn't solved
+     */
+    public MoveSequence getSolution(Puzzle start) {
+        checkCurrent();
+        if (movesOrStatus < 0) {
+            return null;
+        }
+        byte[] moves = new byte[MoveSequence.packedLength(movesOrStatus)];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = window.get(movesStart + i);
+        }
+        return new MoveSequence(start, moves, movesOrStatus);
+    }
+
+    /**
+     * Maps window, which holds given amount of bytes from position of next record
+     */
+    private void ensureMapped(int length) throws IOException {
+        if (window != null && position + length <= windowStart + window.capacity()) {
+            return;
+        }
+        if (position + length > channel.size()) {
+            throw new IOException("Binary result file is damaged or incomplete: " + file);
+        }
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, channel.size() - position));
+        windowStart = position;
+    }
+
+    private void checkCurrent() {
+        if (index < 0) {
+            throw new NoSuchElementException("next() wasn't called");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+}
@@ -0,0 +1,111 @@
+package solver.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import puzzle.BoardSize;
+import puzzle.MoveSequence;
+import puzzle.Puzzle;
+
+/**
+ *
+ * Writes results of {@link BatchSolver} to binary file, read by {@link BinaryResultInput}
+ *
+ * File is header (see {@link BinaryFormat}) and one record per result: puzzle index (8 bytes), amount of moves
+ *      or negative status (4 bytes, see {@link BatchResult#getMovesOrStatus}) and packed moves of solution
+ *      (see {@link MoveSequence#getPackedMoves}), so 60 moves take 27 bytes.
+ *
+ * All results must be of one board size, which is given or taken from the first result with puzzle, so text input
+ *      of any supported size can be written without knowing its size up front.
+ *
+ * @author Marius
+ *
+ */
+public class BinaryResultOutput implements Closeable {
+
+    /**
+     * Board sizes, which fit binary file
+     */
+    public static final List<BoardSize> BOARD_SIZES = Collections.unmodifiableList(Arrays.asList(BoardSize.EIGHT, BoardSize.FIFTEEN));
+
+    private static final int RECORD_HEADER_SIZE = 12;
+
+    private final Path file;
+    private final FileChannel channel;
+    private BoardSize size; // null until the first result with puzzle, if not given
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BinaryFormat.BUFFER_SIZE);
+    private long count;
+
+    /**
+     * @param size - board size of solved puzzles, 3x3 or 4x4
+     */
+    public BinaryResultOutput(Path file, BoardSize size) throws IOException {
+        this(file);
+        this.size = BinaryFormat.size(size.getEdge(), file);
+    }
+
+    /**
+     * Board size is taken from the first written result with puzzle
+     */
+    public BinaryResultOutput(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        channel.position(BinaryFormat.HEADER_SIZE);
+    }
+
+    /**
+     * @throws IOException if puzzle of result has board size, which binary file can't hold
+     * @throws IllegalArgumentException if puzzle of result has other board size than previous ones
+     */
+    public void write(BatchResult result) throws IOException {
+        Puzzle puzzle = result.getPuzzle();
+        if (puzzle != null && size == null) {
+            size = BinaryFormat.size(puzzle.getSize().getEdge(), file);
+        } else if (puzzle != null && puzzle.getSize() != size) {
+            throw new IllegalArgumentException("Expected " + size.getName() + ", given " + puzzle.getSize().getName());
+        }
+        MoveSequence solution = result.getSolution();
+        byte[] packed = solution == null ? null : solution.getPackedMoves();
+        if (buffer.remaining() < RECORD_HEADER_SIZE + (packed == null ? 0 : packed.length)) {
+            BinaryFormat.drain(channel, buffer);
+        }
+        buffer.putLong(result.getIndex());
+        buffer.putInt(result.getMovesOrStatus());
+        if (packed != null && packed.length > buffer.remaining()) { // longer than buffer, written directly
+            BinaryFormat.drain(channel, buffer);
+            ByteBuffer moves = ByteBuffer.wrap(packed);
+            while (moves.hasRemaining()) {
+                channel.write(moves);
+            }
+        } else if (packed != null) {
+            buffer.put(packed);
+        }
+        count++;
+    }
+
+    /**
+     * @return amount of written results
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            BinaryFormat.drain(channel, buffer);
+            BinaryFormat.writeHeader(channel, BinaryFormat.RESULTS_MAGIC, size == null ? BoardSize.FIFTEEN : size, count);
+        } finally {
+            channel.close();
+        }
+    }
+
+}
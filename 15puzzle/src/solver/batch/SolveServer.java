@@ -0,0 +1,428 @@
+package solver.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import puzzle.Puzzle;
+import solver.CancellationToken;
+import solver.SearchBudget;
+import solver.SolveResult;
+import solver.Solver;
+
+/**
+ *
+ * Local TCP server, which solves puzzles sent as text lines by {@link Solver}s of worker threads
+ *
+ * Request line is puzzle (see {@link BatchInput#parse}), optionally preceded by timeout in milliseconds and colon
+ *      ("500: 1 2 3 ..."). Every request gets response line of {@link BatchResult#toLine}, where index is number
+ *      of request on its connection, starting from 0. Requests can be pipelined, responses come in order of completion.
+ *
+ * One selector thread reads requests and writes responses of all connections. Requests wait in bounded queue,
+ *      when it's full they are answered with {@link BatchResult#FAILED} right away. Worker takes all waiting requests
+ *      (up to batch size) at once and sends their responses together, one write per connection, unless solving takes
+ *      longer than {@link #FLUSH_INTERVAL_NANOS}. Timeout counts from receiving request, so time spent in queue is included.
+ *      Connection isn't read while its responses wait for client to read them, so client, which keeps sending
+ *      requests without reading responses, can't make server buffer them without limit.
+ *
+ * Closing server cancels all searches, closed connection cancels searches of its requests.
+ *
+ * Every worker gets its own solver from factory. Heuristics and their tables are created once by caller and shared
+ *      read only, so they are loaded and warmed up only once for all requests.
+ *
+ * @author Marius
+ *
+ */
+public class SolveServer implements Closeable {
+
+    public static final int MAX_LINE_LENGTH = 1024;
+    public static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final Supplier<Solver> solverFactory;
+    private final BlockingQueue<Request> queue;
+    private final Queue<Connection> writable = new ConcurrentLinkedQueue<Connection>();
+    private final List<Thread> threads = new ArrayList<Thread>();
+    private final int workers;
+    private final int batchSize;
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong solved = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private SearchBudget budget = SearchBudget.UNLIMITED;
+    private long timeoutNanos = Long.MAX_VALUE;
+    private CancellationToken cancellation;
+    private volatile boolean closed;
+
+    /**
+     * @param address - address to listen on, port 0 picks free port
+     * @param solverFactory - creates solver for every worker thread
+     * @param workers - amount of worker threads
+     * @param queueCapacity - max amount of requests waiting for worker
+     * @param batchSize - max amount of requests taken by worker at once
+     */
+    public SolveServer(InetSocketAddress address, Supplier<Solver> solverFactory, int workers, int queueCapacity, int batchSize)
+            throws IOException {
+        if (workers < 1 || queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Workers, queue capacity and batch size must be positive");
+        }
+        this.solverFactory = solverFactory;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<Request>(queueCapacity);
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException ex) {
+            serverChannel.close();
+            selector.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @param budget - limits of search for every puzzle
+     */
+    public void setBudget(SearchBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * @param timeout - max time of request, which doesn't give its own timeout, counted from receiving it
+     */
+    public void setTimeout(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive: " + timeout);
+        }
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Starts selector and worker threads, budget and timeout have to be set before
+     */
+    public synchronized void start() {
+        if (!threads.isEmpty()) {
+            throw new IllegalStateException("Server is already started");
+        }
+        cancellation = new CancellationToken(budget.getCancellation());
+        threads.add(new Thread(this::select, "solve-server-selector"));
+        for (int i = 0; i < workers; i++) {
+            threads.add(new Thread(this::work, "solve-server-worker-" + i));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops all threads and closes all connections, requests in progress are not answered
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (cancellation != null) {
+            cancellation.cancel();
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        selector.wakeup();
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        try {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+        } finally {
+            selector.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Received %,d requests, rejected %,d, solved %,d in %,d batches",
+                received.get(), rejected.get(), solved.get(), batches.get());
+    }
+
+    private void select() {
+        try {
+            while (!closed) {
+                selector.select();
+                for (Connection connection; (connection = writable.poll()) != null;) {
+                    connection.flush();
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    if (key.isWritable()) {
+                        connection.flush();
+                    }
+                    if (key.isValid() && key.isReadable() && (key.interestOps() & SelectionKey.OP_READ) != 0) {
+                        connection.read();
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException | ClosedSelectorException ex) {
+            if (!closed) {
+                throw new IllegalStateException("Server selector failed", ex);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    private void work() {
+        Solver solver = solverFactory.get();
+        List<Request> batch = new ArrayList<Request>(batchSize);
+        Map<Connection, StringBuilder> responses = new IdentityHashMap<Connection, StringBuilder>();
+        try {
+            while (!closed) {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                batches.incrementAndGet();
+                long flushed = System.nanoTime();
+                for (Request request : batch) {
+                    BatchResult result = solve(solver, request);
+                    responses.computeIfAbsent(request.connection, c -> new StringBuilder()).append(result.toLine()).append('\n');
+                    if (System.nanoTime() - flushed > FLUSH_INTERVAL_NANOS) {
+                        send(responses);
+                        flushed = System.nanoTime();
+                    }
+                }
+                send(responses);
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            // server is closed
+        }
+    }
+
+    private BatchResult solve(Solver solver, Request request) {
+        long started = System.nanoTime();
+        try {
+            SearchBudget requestBudget = budget.withCancellation(request.connection.cancellation);
+            if (request.timeoutNanos != Long.MAX_VALUE) {
+                requestBudget = requestBudget.withDeadline(request.receivedNanos + request.timeoutNanos);
+            }
+            SolveResult result = solver.solve(request.puzzle, requestBudget);
+            return new BatchResult(request.index, request.puzzle, result, System.nanoTime() - started, null);
+        } catch (Throwable ex) { // every request is answered, worker goes on with the next one
+            RuntimeException error = ex instanceof RuntimeException ? (RuntimeException) ex : new IllegalStateException(ex);
+            return new BatchResult(request.index, request.puzzle, null, System.nanoTime() - started, error);
+        } finally {
+            solved.incrementAndGet();
+        }
+    }
+
+    private void send(Map<Connection, StringBuilder> responses) {
+        for (Map.Entry<Connection, StringBuilder> response : responses.entrySet()) {
+            response.getKey().send(response.getValue());
+        }
+        responses.clear();
+    }
+
+    private static class Request {
+
+        final Connection connection;
+        final long index;
+        final Puzzle puzzle;
+        final long receivedNanos;
+        final long timeoutNanos;
+
+        Request(Connection connection, long index, Puzzle puzzle, long receivedNanos, long timeoutNanos) {
+            this.connection = connection;
+            this.index = index;
+            this.puzzle = puzzle;
+            this.receivedNanos = receivedNanos;
+            this.timeoutNanos = timeoutNanos;
+        }
+
+    }
+
+    /**
+     * Input is used only by selector thread, output is filled by workers and written by selector thread.
+     *      Reading is paused while output doesn't fit to channel, so only responses of already received requests
+     *      can be waiting in output.
+     */
+    private class Connection {
+
+        private final SocketChannel channel;
+        private final CancellationToken cancellation = new CancellationToken(SolveServer.this.cancellation);
+        private final ByteBuffer input = ByteBuffer.allocate(MAX_LINE_LENGTH);
+        private final Queue<ByteBuffer> output = new ArrayDeque<ByteBuffer>();
+        private SelectionKey key;
+        private long requests;
+        private boolean skipLine;
+        private boolean flushScheduled;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() throws IOException {
+            int read;
+            try {
+                read = channel.read(input);
+            } catch (IOException ex) {
+                read = -1; // connection reset by client
+            }
+            if (read < 0) {
+                close();
+                return;
+            }
+            input.flip();
+            int lineStart = 0;
+            for (int i = 0; i < input.limit(); i++) {
+                if (input.get(i) == '\n') {
+                    if (!skipLine) {
+                        request(new String(input.array(), lineStart, i - lineStart, StandardCharsets.US_ASCII).trim());
+                    }
+                    skipLine = false;
+                    lineStart = i + 1;
+                }
+            }
+            input.position(lineStart);
+            input.compact();
+            if (!input.hasRemaining()) {
+                if (!skipLine) {
+                    send(new StringBuilder(response(requests++, "line is longer than " + MAX_LINE_LENGTH)));
+                }
+                skipLine = true; // rest of the line is skipped
+                input.clear();
+            }
+        }
+
+        private void request(String line) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                return;
+            }
+            long receivedNanos = System.nanoTime();
+            long index = requests++;
+            received.incrementAndGet();
+            long timeout = timeoutNanos;
+            Puzzle puzzle;
+            try {
+                int colon = line.indexOf(':');
+                if (colon >= 0) {
+                    timeout = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(line.substring(0, colon).trim()));
+                    timeout = timeout >= Long.MAX_VALUE >> 1 ? Long.MAX_VALUE : timeout; // would overflow clock comparison
+                    line = line.substring(colon + 1).trim();
+                }
+                puzzle = BatchInput.parse(line);
+            } catch (IllegalArgumentException ex) {
+                send(new StringBuilder(response(index, ex.getMessage())));
+                return;
+            }
+            if (!queue.offer(new Request(this, index, puzzle, receivedNanos, timeout))) {
+                rejected.incrementAndGet();
+                send(new StringBuilder(response(index, "server is busy")));
+            }
+        }
+
+        private String response(long index, String error) {
+            return index + "\t" + BatchResult.FAILED + "\t0\t" + error + "\n";
+        }
+
+        /**
+         * Queues response lines for writing by selector thread, called by any thread
+         */
+        void send(CharSequence lines) {
+            ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.US_ASCII));
+            synchronized (this) {
+                output.add(bytes);
+                if (flushScheduled) {
+                    return;
+                }
+                flushScheduled = true;
+            }
+            writable.add(this);
+            selector.wakeup();
+        }
+
+        /**
+         * Writes queued responses, if not all of them fit waits for channel to become writable and stops reading
+         *      requests until they are written
+         */
+        synchronized void flush() throws IOException {
+            flushScheduled = false;
+            if (!key.isValid()) {
+                output.clear();
+                return;
+            }
+            try {
+                while (!output.isEmpty()) {
+                    ByteBuffer bytes = output.peek();
+                    channel.write(bytes);
+                    if (bytes.hasRemaining()) {
+                        key.interestOps(SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    output.remove();
+                }
+            } catch (IOException ex) {
+                close(); // connection reset by client
+                return;
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        private void close() throws IOException {
+            cancellation.cancel();
+            key.cancel();
+            channel.close();
+        }
+
+    }
+
+}
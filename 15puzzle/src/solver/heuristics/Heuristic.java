@@ -1,10 +1,53 @@
 package solver.heuristics;
 
+import puzzle.PackedPuzzle;
 import puzzle.Puzzle;
 
 public interface Heuristic {
 
-    public int heuristicValue(Puzzle p);
+    public default int heuristicValue(Puzzle p) {
+        return heuristicValue(p.getCells());
+    }
+
+    /**
+     * @param cells - packed puzzle state, see {@link PackedPuzzle}
+     */
+    public int heuristicValue(long cells);
+
+    /**
+     * Heuristic values of many puzzles at once, for callers which evaluate puzzles in bulk. Default implementation
+     *      evaluates them one by one, implementations may override it with a loop over packed states
+     * @param states - packed puzzle states
+     * @param values - array of at least as many values as there are states, gets heuristic value of every state
+     */
+    public default void heuristicValues(long[] states, int[] values) {
+        for (int i = 0; i < states.length; i++) {
+            values[i] = heuristicValue(states[i]);
+        }
+    }
+
+    /**
+     * Heuristic value change made by one move. Default implementation evaluates both puzzles,
+     *      implementations should override it with constant time lookups
+     * @param cells - packed puzzle state before move
+     * @param movedTile - value of moved cell
+     * @param from - index of moved cell before move
+     * @param to - index of moved cell after move (empty cell index before move)
+     * @return heuristic value after move minus heuristic value before move
+     */
+    public default int delta(long cells, int movedTile, int from, int to) {
+        return heuristicValue(PackedPuzzle.move(cells, to, from)) - heuristicValue(cells);
+    }
+
+    /**
+     * Heuristic of distance to other puzzle than solved one, used by backward search.
+     *      Default implementation falls back to Manhattan distance for other puzzles
+     * @param goal - packed puzzle state to estimate distance to
+     * @return heuristic of distance to given puzzle
+     */
+    public default Heuristic towards(long goal) {
+        return goal == PackedPuzzle.SOLVED ? this : new ManhattanDistanceHeuristic(goal);
+    }
 
     public String getName();
 
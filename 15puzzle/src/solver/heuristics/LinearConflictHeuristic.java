@@ -0,0 +1,149 @@
+package solver.heuristics;
+
+import puzzle.PackedPuzzle;
+import puzzle.Puzzle;
+
+/**
+ *
+ * Linear conflict heuristic implementation
+ *
+ * Manhattan distance plus two moves for every cell, which has to leave its correct row (column) to let other
+ *      cells of same row (column) pass it. Minimal amount of such cells in a line is amount of line cells
+ *      outside of longest sequence, which is already in correct order.
+ *
+ * Conflicts of every possible row and column content are precomputed, so evaluation takes one lookup per line.
+ *
+ * Source - https://cse.sc.edu/~mgv/csce580sp15/gradPres/HanssonMayerYung1992.pdf
+ *
+ * @author Marius
+ *
+ */
+public class LinearConflictHeuristic implements Heuristic {
+
+    public final static String HEURISTIC_NAME = "Linear conflict";
+
+    private static final int LINE_CONTENTS = 1 << (4 * Puzzle.EDGE);
+
+    private static final byte[][] SOLVED_ROW_CONFLICTS = createConflicts(PackedPuzzle.SOLVED, true);
+    private static final byte[][] SOLVED_COLUMN_CONFLICTS = createConflicts(PackedPuzzle.SOLVED, false);
+
+    private final long goal;
+    private final Heuristic manhattanDistanceHeuristic;
+    /**
+     * Extra moves of every row content: [row][4 cell values packed as nibbles, left to right]
+     */
+    private final byte[][] rowConflicts;
+    /**
+     * Extra moves of every column content: [column][4 cell values packed as nibbles, top to bottom]
+     */
+    private final byte[][] columnConflicts;
+
+    public LinearConflictHeuristic() {
+        this(PackedPuzzle.SOLVED);
+    }
+
+    /**
+     * @param goal - packed puzzle state, to which distance is measured
+     */
+    public LinearConflictHeuristic(long goal) {
+        this.goal = goal;
+        this.manhattanDistanceHeuristic = new ManhattanDistanceHeuristic(goal);
+        boolean solved = goal == PackedPuzzle.SOLVED;
+        this.rowConflicts = solved ? SOLVED_ROW_CONFLICTS : createConflicts(goal, true);
+        this.columnConflicts = solved ? SOLVED_COLUMN_CONFLICTS : createConflicts(goal, false);
+    }
+
+    @Override
+    public int heuristicValue(long cells) {
+        int distance = manhattanDistanceHeuristic.heuristicValue(cells);
+        for (int line = 0; line < Puzzle.EDGE; line++) {
+            distance += rowConflicts[line][row(cells, line)] + columnConflicts[line][column(cells, line)];
+        }
+        return distance;
+    }
+
+    /**
+     * Horizontal move changes only columns of both cells, vertical - only rows
+     */
+    @Override
+    public int delta(long cells, int movedTile, int from, int to) {
+        int delta = manhattanDistanceHeuristic.delta(cells, movedTile, from, to);
+        long after = PackedPuzzle.move(cells, to, from);
+        int fromRow = PackedPuzzle.row(from);
+        int toRow = PackedPuzzle.row(to);
+        if (fromRow == toRow) {
+            int fromColumn = PackedPuzzle.column(from);
+            int toColumn = PackedPuzzle.column(to);
+            delta += columnConflicts[fromColumn][column(after, fromColumn)] - columnConflicts[fromColumn][column(cells, fromColumn)]
+                    + columnConflicts[toColumn][column(after, toColumn)] - columnConflicts[toColumn][column(cells, toColumn)];
+        } else {
+            delta += rowConflicts[fromRow][row(after, fromRow)] - rowConflicts[fromRow][row(cells, fromRow)]
+                    + rowConflicts[toRow][row(after, toRow)] - rowConflicts[toRow][row(cells, toRow)];
+        }
+        return delta;
+    }
+
+    @Override
+    public Heuristic towards(long goal) {
+        return goal == this.goal ? this : new LinearConflictHeuristic(goal);
+    }
+
+    @Override
+    public String getName() {
+        return HEURISTIC_NAME;
+    }
+
+    private static int row(long cells, int row) {
+        return (int) (cells >>> (4 * Puzzle.EDGE * row)) & (LINE_CONTENTS - 1);
+    }
+
+    private static int column(long cells, int column) {
+        int content = 0;
+        for (int row = 0; row < Puzzle.EDGE; row++) {
+            content |= PackedPuzzle.getCell(cells, row * Puzzle.EDGE + column) << (4 * row);
+        }
+        return content;
+    }
+
+    private static byte[][] createConflicts(long goal, boolean rows) {
+        byte[][] conflicts = new byte[Puzzle.EDGE][LINE_CONTENTS];
+        int[] order = new int[Puzzle.EDGE];
+        for (int line = 0; line < Puzzle.EDGE; line++) {
+            for (int content = 0; content < LINE_CONTENTS; content++) {
+                // correct positions (inside line) of cells, which belong to this line
+                int length = 0;
+                for (int i = 0; i < Puzzle.EDGE; i++) {
+                    int value = (content >>> (4 * i)) & 0xF;
+                    if (value > 0) {
+                        int correct = PackedPuzzle.indexOf(goal, value);
+                        int correctLine = rows ? PackedPuzzle.row(correct) : PackedPuzzle.column(correct);
+                        if (correctLine == line) {
+                            order[length++] = rows ? PackedPuzzle.column(correct) : PackedPuzzle.row(correct);
+                        }
+                    }
+                }
+                conflicts[line][content] = (byte) (2 * (length - longestIncreasing(order, length)));
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * @return length of longest increasing subsequence
+     */
+    private static int longestIncreasing(int[] values, int length) {
+        int[] longest = new int[length];
+        int best = 0;
+        for (int i = 0; i < length; i++) {
+            longest[i] = 1;
+            for (int j = 0; j < i; j++) {
+                if (values[j] < values[i] && longest[j] + 1 > longest[i]) {
+                    longest[i] = longest[j] + 1;
+                }
+            }
+            best = Math.max(best, longest[i]);
+        }
+        return best;
+    }
+
+}
@@ -1,8 +1,6 @@
 package solver.heuristics;
 
-import java.awt.Point;
-
-import puzzle.Puzzle;
+import puzzle.PackedPuzzle;
 
 /**
  * 
@@ -20,21 +18,91 @@ public class ManhattanDistanceHeuristic implements Heuristic {
 
     public final static String HEURISTIC_NAME = "Manhattan distance";
 
+    /**
+     * Distance of every cell value from every index to its place in solved puzzle: [value][index]
+     */
+    private static final int[][] SOLVED_DISTANCES = createDistances(PackedPuzzle.SOLVED);
+    private static final byte[] SOLVED_PAIR_DISTANCES = createPairDistances(SOLVED_DISTANCES);
+
+    private final long goal;
+    private final int[][] distances;
+    /**
+     * Distance of both cells of every byte value at every byte of packed state: [byte index << 8 | byte]
+     */
+    private final byte[] pairDistances;
+
+    public ManhattanDistanceHeuristic() {
+        this(PackedPuzzle.SOLVED);
+    }
+
+    /**
+     * @param goal - packed puzzle state, to which distance is measured
+     */
+    public ManhattanDistanceHeuristic(long goal) {
+        this.goal = goal;
+        this.distances = goal == PackedPuzzle.SOLVED ? SOLVED_DISTANCES : createDistances(goal);
+        this.pairDistances = goal == PackedPuzzle.SOLVED ? SOLVED_PAIR_DISTANCES : createPairDistances(distances);
+    }
+
     @Override
-    public int heuristicValue(Puzzle puzzle) {
+    public int heuristicValue(long cells) {
         int distance = 0;
-        for (Point p : puzzle.getAllCellCoords()) {
-            if (puzzle.getCell(p) > 0) {
-                Point correct = Puzzle.SOLVED.getCoordsOfValue(puzzle.getCell(p));
-                distance = distance + Math.abs(correct.x - p.x) + Math.abs(correct.y - p.y);
-            }
+        for (int i = 0; i < PackedPuzzle.CELLS; i++) {
+            distance += distances[PackedPuzzle.getCell(cells, i)][i];
         }
         return distance;
     }
 
+    /**
+     * Looks up two cells at once, so a state takes 8 lookups in table of 2 KB instead of 16
+     */
+    @Override
+    public void heuristicValues(long[] states, int[] values) {
+        for (int i = 0; i < states.length; i++) {
+            long cells = states[i];
+            int distance = 0;
+            for (int b = 0; b < Long.BYTES; b++) {
+                distance += pairDistances[b << 8 | (int) (cells >>> (b << 3)) & 0xFF];
+            }
+            values[i] = distance;
+        }
+    }
+
+    @Override
+    public int delta(long cells, int movedTile, int from, int to) {
+        return distances[movedTile][to] - distances[movedTile][from];
+    }
+
+    @Override
+    public Heuristic towards(long goal) {
+        return goal == this.goal ? this : new ManhattanDistanceHeuristic(goal);
+    }
+
     @Override
     public String getName() {
         return HEURISTIC_NAME;
     }
 
+    private static int[][] createDistances(long goal) {
+        int[][] distances = new int[PackedPuzzle.CELLS][PackedPuzzle.CELLS];
+        for (int value = 1; value < PackedPuzzle.CELLS; value++) { // empty cell is not counted
+            int correct = PackedPuzzle.indexOf(goal, value);
+            for (int i = 0; i < PackedPuzzle.CELLS; i++) {
+                distances[value][i] = Math.abs(PackedPuzzle.row(correct) - PackedPuzzle.row(i))
+                        + Math.abs(PackedPuzzle.column(correct) - PackedPuzzle.column(i));
+            }
+        }
+        return distances;
+    }
+
+    private static byte[] createPairDistances(int[][] distances) {
+        byte[] pairDistances = new byte[Long.BYTES << 8];
+        for (int b = 0; b < Long.BYTES; b++) {
+            for (int value = 0; value < 256; value++) {
+                pairDistances[b << 8 | value] = (byte) (distances[value & 0xF][2 * b] + distances[value >>> 4][2 * b + 1]);
+            }
+        }
+        return pairDistances;
+    }
+
 }
@@ -0,0 +1,296 @@
+package solver.heuristics;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import puzzle.PackedPuzzle;
+import puzzle.Puzzle;
+
+/**
+ *
+ * Builds additive disjoint pattern databases and writes them to binary file for {@link PatternDatabaseHeuristic}
+ *
+ * For every pattern (group of cells) breadth first search goes backwards from solved puzzle over states, which
+ *      contain only positions of pattern cells and empty cell. Moving empty cell over cells outside pattern
+ *      is free, only moves of pattern cells are counted, so values of disjoint patterns can be summed.
+ * Stored value of pattern positions is the lowest value of all empty cell positions.
+ *
+ * File layout (big endian): magic, pattern count, then for every pattern its cell count and cell values (bytes),
+ *      then tables of all patterns one after another, one byte per ranked pattern positions.
+ *
+ * Usage: PatternDatabaseGenerator file [5-5-5|6-6-3]
+ *
+ * Source - https://arxiv.org/abs/1107.0050 (Felner, Korf, Hanan - Additive Pattern Database Heuristics)
+ *
+ * @author Marius
+ *
+ */
+public class PatternDatabaseGenerator {
+
+    static final int MAGIC = 0x50444231; // "PDB1"
+
+    private static final byte UNVISITED = -1;
+
+    /**
+     * Builds tables of given partition and writes them to file
+     * @param partition - disjoint groups of cell values, empty cell can't be part of pattern
+     * @param file - file to write
+     */
+    public void generate(int[][] partition, Path file) throws IOException {
+        generate(partition, file, pattern -> {
+        });
+    }
+
+    /**
+     * Builds tables of given partition and writes them to file, reporting progress to caller
+     * 
+     * Tables are written to temporary file in the same directory, which is moved to given file atomically
+     *      when complete, so interrupted generation or concurrent reader never sees incomplete file.
+     * @param progress - gets cell values of every pattern before its table is built
+     */
+    public void generate(int[][] partition, Path file, Consumer<int[]> progress) throws IOException {
+        validate(partition);
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream stream = Files.newOutputStream(temp);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(partition.length);
+                for (int[] pattern : partition) {
+                    out.writeInt(pattern.length);
+                    for (int tile : pattern) {
+                        out.writeByte(tile);
+                    }
+                }
+                for (int[] pattern : partition) {
+                    progress.accept(pattern);
+                    out.write(generate(pattern));
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @param pattern - cell values of pattern
+     * @return table of pattern, indexed by {@link #rank} of pattern cell positions
+     */
+    public byte[] generate(int[] pattern) {
+        int tiles = pattern.length;
+        int freeCells = PackedPuzzle.CELLS - tiles;
+        byte[] distances = new byte[permutations(tiles + 1)]; // pattern cell positions, empty cell position last
+        Arrays.fill(distances, UNVISITED);
+
+        int[] positions = new int[tiles + 1];
+        for (int i = 0; i < tiles; i++) {
+            positions[i] = PackedPuzzle.indexOf(PackedPuzzle.SOLVED, pattern[i]);
+        }
+        positions[tiles] = PackedPuzzle.emptyIndex(PackedPuzzle.SOLVED);
+        IntList current = new IntList();
+        IntList next = new IntList();
+        int start = rank(positions, tiles + 1);
+        distances[start] = 0;
+        current.add(start);
+
+        // layers are processed one by one: free moves add states to current layer, pattern cell moves to next one
+        for (int distance = 0; current.size() > 0; distance++) {
+            for (int i = 0; i < current.size(); i++) {
+                int state = current.get(i);
+                if (distances[state] != distance) { // was found again in earlier layer
+                    continue;
+                }
+                unrank(state, tiles + 1, positions);
+                int emptyIndex = positions[tiles];
+                for (int direction = 0; direction < 4; direction++) {
+                    int cellToMove = neighbour(emptyIndex, direction);
+                    if (cellToMove < 0) {
+                        continue;
+                    }
+                    int movedTile = indexOf(positions, tiles, cellToMove);
+                    positions[tiles] = cellToMove;
+                    if (movedTile < 0) { // empty cell moves over cell outside pattern
+                        int after = rank(positions, tiles + 1);
+                        if (distances[after] == UNVISITED || distances[after] > distance) {
+                            distances[after] = (byte) distance;
+                            current.add(after);
+                        }
+                    } else {
+                        positions[movedTile] = emptyIndex;
+                        int after = rank(positions, tiles + 1);
+                        if (distances[after] == UNVISITED) {
+                            distances[after] = (byte) (distance + 1);
+                            next.add(after);
+                        }
+                        positions[movedTile] = cellToMove;
+                    }
+                    positions[tiles] = emptyIndex;
+                }
+            }
+            IntList layer = current;
+            current = next;
+            next = layer;
+            next.clear();
+        }
+
+        // empty cell position is last rank digit, so every pattern state owns consecutive block of values
+        byte[] table = new byte[permutations(tiles)];
+        for (int i = 0; i < table.length; i++) {
+            byte min = Byte.MAX_VALUE;
+            for (int j = i * freeCells; j < (i + 1) * freeCells; j++) {
+                if (distances[j] != UNVISITED && distances[j] < min) {
+                    min = distances[j];
+                }
+            }
+            table[i] = min;
+        }
+        return table;
+    }
+
+    /**
+     * @return amount of ways to place given amount of distinct cells on puzzle
+     */
+    static int permutations(int cells) {
+        long result = 1;
+        for (int i = 0; i < cells; i++) {
+            result *= PackedPuzzle.CELLS - i;
+        }
+        if (result > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Pattern of " + cells + " cells is too large");
+        }
+        return (int) result;
+    }
+
+    /**
+     * Ranks distinct cell positions: every position is counted only among positions not used before it
+     * @param positions - cell indexes
+     * @param length - amount of positions to rank
+     * @return rank from 0 (inclusive) to {@link #permutations}(length) (exclusive)
+     */
+    static int rank(int[] positions, int length) {
+        int rank = 0;
+        int used = 0;
+        for (int i = 0; i < length; i++) {
+            int position = positions[i];
+            rank = rank * (PackedPuzzle.CELLS - i) + position - Integer.bitCount(used & ((1 << position) - 1));
+            used |= 1 << position;
+        }
+        return rank;
+    }
+
+    /**
+     * Reverse of {@link #rank}, fills positions with cell indexes
+     */
+    static void unrank(int rank, int length, int[] positions) {
+        for (int i = length - 1; i >= 0; i--) {
+            int base = PackedPuzzle.CELLS - i;
+            positions[i] = rank % base;
+            rank /= base;
+        }
+        int used = 0;
+        for (int i = 0; i < length; i++) {
+            int position = positions[i];
+            int cell = 0;
+            while (true) { // position-th cell not used before
+                if ((used & (1 << cell)) == 0) {
+                    if (position == 0) {
+                        break;
+                    }
+                    position--;
+                }
+                cell++;
+            }
+            positions[i] = cell;
+            used |= 1 << cell;
+        }
+    }
+
+    /**
+     * @return index of cell, which can be moved to given empty cell from given direction, or -1 if it's outside of puzzle
+     */
+    static int neighbour(int emptyIndex, int direction) {
+        int row = PackedPuzzle.row(emptyIndex);
+        int column = PackedPuzzle.column(emptyIndex);
+        switch (direction) {
+            case 0: // left
+                return column > 0 ? emptyIndex - 1 : -1;
+            case 1: // right
+                return column < Puzzle.EDGE - 1 ? emptyIndex + 1 : -1;
+            case 2: // up
+                return row < Puzzle.EDGE - 1 ? emptyIndex + Puzzle.EDGE : -1;
+            default: // down
+                return row > 0 ? emptyIndex - Puzzle.EDGE : -1;
+        }
+    }
+
+    private static int indexOf(int[] positions, int length, int position) {
+        for (int i = 0; i < length; i++) {
+            if (positions[i] == position) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void validate(int[][] partition) {
+        int used = 0;
+        for (int[] pattern : partition) {
+            for (int tile : pattern) {
+                if (tile < 1 || tile >= PackedPuzzle.CELLS || (used & (1 << tile)) != 0) {
+                    throw new IllegalArgumentException("Patterns must contain distinct cell values from 1 to 15");
+                }
+                used |= 1 << tile;
+            }
+            permutations(pattern.length + 1);
+        }
+    }
+
+    /**
+     * Growable list of primitive ints
+     */
+    private static class IntList {
+        private int[] values = new int[1024];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: PatternDatabaseGenerator file [5-5-5|6-6-3]");
+            return;
+        }
+        String partitionName = args.length > 1 ? args[1] : PatternDatabaseHeuristic.PARTITION_663_NAME;
+        int[][] partition = PatternDatabaseHeuristic.partition(partitionName);
+        long started = System.nanoTime();
+        new PatternDatabaseGenerator().generate(partition, Paths.get(args[0]), PatternDatabaseHeuristic.printProgress(System.out));
+        System.out.printf("Pattern database %s written to %s in %.1f s\n", partitionName, args[0],
+                (System.nanoTime() - started) / 1e9);
+    }
+}
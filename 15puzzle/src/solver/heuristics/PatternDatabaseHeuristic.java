@@ -0,0 +1,183 @@
+package solver.heuristics;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+
+import puzzle.PackedPuzzle;
+
+/**
+ *
+ * Additive disjoint pattern database heuristic implementation
+ *
+ * Cells are split into disjoint groups (patterns). For every pattern database holds exact amount of pattern cell moves
+ *      needed to put them in place, ignoring other cells. Moves of different patterns never overlap,
+ *      so sum of all pattern values is still a lower bound of solution length.
+ *
+ * Tables are made by {@link PatternDatabaseGenerator} and read through memory mapped file,
+ *      so once generated they are shared by all solvers and loaded instantly by next program run.
+ *
+ * Source - https://arxiv.org/abs/1107.0050 (Felner, Korf, Hanan - Additive Pattern Database Heuristics)
+ *
+ * @author Marius
+ *
+ */
+public class PatternDatabaseHeuristic implements Heuristic {
+
+    public final static String HEURISTIC_NAME = "Additive pattern database";
+    public final static String PARTITION_555_NAME = "5-5-5";
+    public final static String PARTITION_663_NAME = "6-6-3";
+
+    private final static int[][] PARTITION_555 = { { 1, 2, 5, 6, 9 }, { 3, 4, 7, 8, 12 }, { 10, 11, 13, 14, 15 } };
+    private final static int[][] PARTITION_663 = { { 1, 5, 6, 9, 10, 13 }, { 7, 8, 11, 12, 14, 15 }, { 2, 3, 4 } };
+
+    private final ByteBuffer tables;
+    private final int[][] patterns;
+    private final int[] offsets; // start of every pattern table in file
+    private final int[] patternOfValue; // pattern of every cell value, -1 for empty cell
+    private final String name;
+
+    /**
+     * @param file - pattern database made by {@link PatternDatabaseGenerator}
+     */
+    public PatternDatabaseHeuristic(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            tables = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (tables.getInt() != PatternDatabaseGenerator.MAGIC) {
+            throw new IOException("Not a pattern database file: " + file);
+        }
+        patterns = new int[tables.getInt()][];
+        offsets = new int[patterns.length];
+        patternOfValue = new int[PackedPuzzle.CELLS];
+        Arrays.fill(patternOfValue, -1);
+        StringJoiner sizes = new StringJoiner("-");
+        for (int i = 0; i < patterns.length; i++) {
+            patterns[i] = new int[tables.getInt()];
+            for (int j = 0; j < patterns[i].length; j++) {
+                patterns[i][j] = tables.get();
+                patternOfValue[patterns[i][j]] = i;
+            }
+            sizes.add(Integer.toString(patterns[i].length));
+        }
+        int offset = tables.position();
+        for (int i = 0; i < patterns.length; i++) {
+            offsets[i] = offset;
+            offset += PatternDatabaseGenerator.permutations(patterns[i].length);
+        }
+        if (offset != tables.capacity()) {
+            throw new IOException("Pattern database file is damaged: " + file);
+        }
+        name = HEURISTIC_NAME + " (" + sizes + ")";
+    }
+
+    /**
+     * Loads pattern database from given file, generates and writes it first if file doesn't exist
+     */
+    public static PatternDatabaseHeuristic loadOrGenerate(Path file, int[][] partition) throws IOException {
+        return loadOrGenerate(file, partition, pattern -> {
+        });
+    }
+
+    /**
+     * @param progress - gets cell values of every pattern before its table is generated, see
+     *      {@link PatternDatabaseGenerator#generate(int[][], Path, Consumer)}
+     */
+    public static PatternDatabaseHeuristic loadOrGenerate(Path file, int[][] partition, Consumer<int[]> progress)
+            throws IOException {
+        if (!Files.exists(file)) {
+            new PatternDatabaseGenerator().generate(partition, file, progress);
+        }
+        return new PatternDatabaseHeuristic(file);
+    }
+
+    /**
+     * @return generation progress listener, which prints every pattern to given stream
+     */
+    public static Consumer<int[]> printProgress(PrintStream out) {
+        return pattern -> out.printf("Generating pattern database of cells %s...\n", Arrays.toString(pattern));
+    }
+
+    /**
+     * @param name - {@link #PARTITION_555_NAME} or {@link #PARTITION_663_NAME}
+     * @return copy of partition cell values
+     */
+    public static int[][] partition(String name) {
+        int[][] partition;
+        if (PARTITION_555_NAME.equals(name)) {
+            partition = PARTITION_555;
+        } else if (PARTITION_663_NAME.equals(name)) {
+            partition = PARTITION_663;
+        } else {
+            throw new IllegalArgumentException("Unknown partition: " + name);
+        }
+        int[][] copy = new int[partition.length][];
+        for (int i = 0; i < partition.length; i++) {
+            copy[i] = partition[i].clone();
+        }
+        return copy;
+    }
+
+    @Override
+    public int heuristicValue(long cells) {
+        long positions = positions(cells);
+        int value = 0;
+        for (int i = 0; i < patterns.length; i++) {
+            value += lookup(i, positions);
+        }
+        return value;
+    }
+
+    /**
+     * Only pattern of moved cell can change its value
+     */
+    @Override
+    public int delta(long cells, int movedTile, int from, int to) {
+        int pattern = patternOfValue[movedTile];
+        if (pattern < 0) {
+            return 0;
+        }
+        long positions = positions(cells);
+        return lookup(pattern, PackedPuzzle.setCell(positions, movedTile, to)) - lookup(pattern, positions);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param positions - cell index of every value, packed same way as puzzle cells
+     * @return table value of given pattern
+     */
+    private int lookup(int pattern, long positions) {
+        int[] values = patterns[pattern];
+        int rank = 0;
+        int used = 0;
+        for (int i = 0; i < values.length; i++) {
+            int position = PackedPuzzle.getCell(positions, values[i]);
+            rank = rank * (PackedPuzzle.CELLS - i) + position - Integer.bitCount(used & ((1 << position) - 1));
+            used |= 1 << position;
+        }
+        return tables.get(offsets[pattern] + rank);
+    }
+
+    /**
+     * @return packed cell index of every value (inverse of puzzle cells)
+     */
+    private static long positions(long cells) {
+        long positions = 0;
+        for (int i = 0; i < PackedPuzzle.CELLS; i++) {
+            positions |= (long) i << (PackedPuzzle.getCell(cells, i) << 2);
+        }
+        return positions;
+    }
+
+}
@@ -0,0 +1,301 @@
+package solver.heuristics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import puzzle.BoardSize;
+import puzzle.MoveSequence;
+import puzzle.PackedPuzzle;
+
+/**
+ *
+ * Perimeter (endgame) database: exact distance and first move to solved puzzle of every 15-puzzle state
+ *      within given depth from solved one
+ *
+ * Database is built by breadth first search from solved puzzle, one layer at a time: states of a layer are expanded
+ *      in parallel while table is only read, new states are added by one thread after that. Move of a state leads to
+ *      the state it was found from, so following moves ends in solved puzzle.
+ *
+ * States are kept in open addressing table (state 0 marks free slots) with one byte per state: distance in low
+ *      5 bits, direction of the move (see {@link BoardSize#getDirection}) above it. Depth 16 takes about 241 000
+ *      states and 4.5 MB. File holds the same entries, table is rebuilt when it's loaded.
+ *
+ * Source - https://doi.org/10.1016/0004-3702(94)00047-6 (Manzini - BIDA*: an improved perimeter search algorithm)
+ *
+ * @author Marius
+ *
+ */
+public class PerimeterDatabase {
+
+    public static final int MAX_DEPTH = 20;
+
+    private static final int MAGIC = 0x50455231; // "PER1"
+    private static final long FREE = 0L;
+    private static final int DISTANCE_BITS = 5;
+    private static final int DISTANCE_MASK = (1 << DISTANCE_BITS) - 1;
+    private static final int CHUNK_SIZE = 1 << 12;
+
+    private final int depth;
+    private long[] states;
+    private byte[] entries;
+    private int mask;
+    private int size;
+
+    private PerimeterDatabase(int depth, int expectedSize) {
+        this.depth = depth;
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2 - 1, 1)) << 1; // load factor under 0.5
+        states = new long[capacity];
+        entries = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * @param depth - max distance of states from solved puzzle, from 0 to {@link #MAX_DEPTH}
+     */
+    public static PerimeterDatabase generate(int depth) {
+        checkDepth(depth);
+        PerimeterDatabase database = new PerimeterDatabase(depth, 1 << 10);
+        database.put(PackedPuzzle.SOLVED, 0, 0);
+        long[] layer = { PackedPuzzle.SOLVED };
+        for (int distance = 1; distance <= depth && layer.length > 0; distance++) {
+            long[][] found = database.expand(layer);
+            int added = 0;
+            long[] next = new long[Arrays.stream(found).mapToInt(chunk -> chunk.length / 2).sum()];
+            for (long[] chunk : found) {
+                for (int i = 0; i < chunk.length; i += 2) {
+                    if (database.put(chunk[i], distance, (int) chunk[i + 1])) {
+                        next[added++] = chunk[i];
+                    }
+                }
+            }
+            layer = Arrays.copyOf(next, added);
+        }
+        return database;
+    }
+
+    /**
+     * Loads database from given file, generates and writes it first if file doesn't exist
+     */
+    public static PerimeterDatabase loadOrGenerate(Path file, int depth) throws IOException {
+        if (!Files.exists(file)) {
+            generate(depth).save(file);
+        }
+        PerimeterDatabase database = load(file);
+        if (database.depth != depth) {
+            throw new IOException("Perimeter database " + file + " has depth " + database.depth + ", expected " + depth);
+        }
+        return database;
+    }
+
+    public static PerimeterDatabase load(Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a perimeter database file: " + file);
+            }
+            int depth = in.readInt();
+            int count = in.readInt();
+            if (depth < 0 || depth > MAX_DEPTH || count < 1) {
+                throw new IOException("Perimeter database file is damaged: " + file);
+            }
+            PerimeterDatabase database = new PerimeterDatabase(depth, count);
+            for (int i = 0; i < count; i++) {
+                long state = in.readLong();
+                int entry = in.readByte();
+                if (state == FREE || (entry & DISTANCE_MASK) > depth) {
+                    throw new IOException("Perimeter database file is damaged: " + file);
+                }
+                database.put(state, entry & DISTANCE_MASK, entry >>> DISTANCE_BITS & 3);
+            }
+            return database;
+        }
+    }
+
+    /**
+     * Writes database to temporary file in the same directory and moves it to given file atomically,
+     *      so interrupted write or concurrent {@link #loadOrGenerate} never sees incomplete file
+     */
+    public void save(Path file) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream stream = Files.newOutputStream(temp);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(depth);
+                out.writeInt(size);
+                for (int slot = 0; slot < states.length; slot++) {
+                    if (states[slot] != FREE) {
+                        out.writeLong(states[slot]);
+                        out.writeByte(entries[slot]);
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return max distance of stored states from solved puzzle
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return amount of stored states
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return exact amount of moves from given state to solved puzzle, or -1 if state is farther than depth
+     */
+    public int distance(long state) {
+        int slot = indexOf(state);
+        return slot < 0 ? -1 : entries[slot] & DISTANCE_MASK;
+    }
+
+    /**
+     * Lifts heuristic value by database: states outside of it are at least depth + 1 moves away,
+     *      states inside have exact distance. Only states with value up to depth are looked up,
+     *      as admissible heuristic is never more than distance.
+     * Every move moves empty cell to a cell of other color of checkerboard, so distance is odd exactly when empty cell
+     *      is on the other color than in solved puzzle. Bound outside is raised to depth + 2, when parity needs it,
+     *      otherwise IDA* would run an extra iteration, which can't find anything.
+     * @param state - packed puzzle state
+     * @param heuristicValue - admissible heuristic value of state
+     * @return the best lower bound of distance to solved puzzle
+     */
+    public int lift(long state, int heuristicValue) {
+        if (heuristicValue > depth) {
+            return heuristicValue;
+        }
+        int distance = distance(state);
+        if (distance >= 0) {
+            return distance;
+        }
+        int emptyIndex = PackedPuzzle.emptyIndex(state);
+        int parity = (PackedPuzzle.row(emptyIndex) + PackedPuzzle.column(emptyIndex)) & 1; // solved empty cell is at 3, 3
+        return depth + 1 + ((depth + 1 + parity) & 1);
+    }
+
+    /**
+     * @param state - state stored in database, other than solved one
+     * @return index of cell, which is moved by the first move to solved puzzle (empty cell index after it)
+     */
+    public int nextEmptyIndex(long state) {
+        int slot = indexOf(state);
+        if (slot < 0 || state == PackedPuzzle.SOLVED) {
+            throw new IllegalArgumentException("State is not inside perimeter: " + Long.toHexString(state));
+        }
+        int direction = entries[slot] >>> DISTANCE_BITS & 3;
+        return PackedPuzzle.emptyIndex(state) + BoardSize.FIFTEEN.getNeighbourOffset(direction);
+    }
+
+    /**
+     * Adds moves from given state stored in database to solved puzzle
+     * @param result - solution, which ends in given state
+     */
+    public void appendPath(long state, MoveSequence.Builder result) {
+        while (state != PackedPuzzle.SOLVED) {
+            int emptyIndex = PackedPuzzle.emptyIndex(state);
+            int tileIndex = nextEmptyIndex(state);
+            result.addLast(tileIndex);
+            state = PackedPuzzle.move(state, emptyIndex, tileIndex);
+        }
+    }
+
+    /**
+     * Finds states next to given layer, which aren't in table yet, in parallel
+     * @return chunks of found states, each followed by direction of move back to the state it was found from
+     */
+    private long[][] expand(long[] layer) {
+        int chunks = (layer.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+            int end = Math.min(layer.length, (chunk + 1) * CHUNK_SIZE);
+            long[] found = new long[(end - chunk * CHUNK_SIZE) * 6]; // up to 3 new states per state, as one was the parent
+            int count = 0;
+            for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                long state = layer[i];
+                int emptyIndex = PackedPuzzle.emptyIndex(state);
+                for (int tileIndex : BoardSize.FIFTEEN.getNeighbours(emptyIndex)) {
+                    long next = PackedPuzzle.move(state, emptyIndex, tileIndex);
+                    if (indexOf(next) < 0) {
+                        found[count++] = next;
+                        found[count++] = BoardSize.FIFTEEN.getDirection(tileIndex, emptyIndex); // empty cell moves back
+                    }
+                }
+            }
+            return Arrays.copyOf(found, count);
+        }).toArray(long[][]::new);
+    }
+
+    /**
+     * @return <code>false</code> if state is already stored
+     */
+    private boolean put(long state, int distance, int direction) {
+        if (size * 2 >= states.length) {
+            resize();
+        }
+        int slot = PackedPuzzle.hash(state) & mask;
+        while (states[slot] != FREE) {
+            if (states[slot] == state) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        states[slot] = state;
+        entries[slot] = (byte) (distance | direction << DISTANCE_BITS);
+        size++;
+        return true;
+    }
+
+    private int indexOf(long state) {
+        int slot = PackedPuzzle.hash(state) & mask;
+        while (states[slot] != FREE) {
+            if (states[slot] == state) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void resize() {
+        long[] oldStates = states;
+        byte[] oldEntries = entries;
+        states = new long[oldStates.length << 1];
+        entries = new byte[oldStates.length << 1];
+        mask = states.length - 1;
+        for (int i = 0; i < oldStates.length; i++) {
+            if (oldStates[i] != FREE) {
+                int slot = PackedPuzzle.hash(oldStates[i]) & mask;
+                while (states[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                states[slot] = oldStates[i];
+                entries[slot] = oldEntries[i];
+            }
+        }
+    }
+
+    private static void checkDepth(int depth) {
+        if (depth < 0 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Perimeter depth must be from 0 to " + MAX_DEPTH + ": " + depth);
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package solver.heuristics;
+
+import puzzle.PackedPuzzle;
+
+/**
+ *
+ * Heuristic lifted by {@link PerimeterDatabase}: exact distance inside perimeter, at least perimeter depth + 1
+ *      outside of it, otherwise value of given heuristic. Lifted heuristic stays admissible and consistent,
+ *      if given one is.
+ *
+ * A* and IDA* solvers recognize this heuristic: they keep updating values of the given one by deltas and stop
+ *      as soon as search reaches perimeter, finishing solution with moves from database. Other solvers just use
+ *      lifted values, which are evaluated in full on every move.
+ *
+ * @author Marius
+ *
+ */
+public class PerimeterHeuristic implements Heuristic {
+
+    private final PerimeterDatabase perimeter;
+    private final Heuristic heuristic;
+
+    /**
+     * @param perimeter - database of states around solved puzzle
+     * @param heuristic - heuristic for states outside of perimeter
+     */
+    public PerimeterHeuristic(PerimeterDatabase perimeter, Heuristic heuristic) {
+        this.perimeter = perimeter;
+        this.heuristic = heuristic;
+    }
+
+    @Override
+    public int heuristicValue(long cells) {
+        return perimeter.lift(cells, heuristic.heuristicValue(cells));
+    }
+
+    /**
+     * Evaluates all states by the given heuristic at once and lifts them one by one
+     */
+    @Override
+    public void heuristicValues(long[] states, int[] values) {
+        heuristic.heuristicValues(states, values);
+        for (int i = 0; i < states.length; i++) {
+            values[i] = perimeter.lift(states[i], values[i]);
+        }
+    }
+
+    /**
+     * Perimeter is around solved puzzle, so other goals fall back to the given heuristic
+     */
+    @Override
+    public Heuristic towards(long goal) {
+        return goal == PackedPuzzle.SOLVED ? this : heuristic.towards(goal);
+    }
+
+    public PerimeterDatabase getPerimeter() {
+        return perimeter;
+    }
+
+    /**
+     * @return heuristic for states outside of perimeter
+     */
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+
+    @Override
+    public String getName() {
+        return heuristic.getName() + " with perimeter of depth " + perimeter.getDepth();
+    }
+
+}
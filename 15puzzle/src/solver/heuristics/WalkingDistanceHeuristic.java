@@ -0,0 +1,191 @@
+package solver.heuristics;
+
+import puzzle.PackedPuzzle;
+import puzzle.Puzzle;
+
+/**
+ *
+ * Walking distance heuristic implementation
+ *
+ * Puzzle is described only by how many cells of every correct row are in every row. Vertical moves of empty cell
+ *      change this table by moving one cell to neighbour row, horizontal moves don't change it at all.
+ *      Exact amount of vertical moves needed to reach solved table is a lower bound of vertical moves in solution.
+ *      Same tables describe columns, so walking distance is sum of vertical and horizontal values.
+ *
+ * All reachable tables are found by breadth first search from solved one when class is loaded,
+ *      evaluation takes one pass over cells and two hash table lookups.
+ *
+ * Source - http://www.ic-net.or.jp/home/takaken/e/15pz/wd.gif (Ken'ichiro Takahashi)
+ *
+ * @author Marius
+ *
+ */
+public class WalkingDistanceHeuristic implements Heuristic {
+
+    public final static String HEURISTIC_NAME = "Walking distance";
+
+    /**
+     * Every table count fits in 3 bits: key bits [3 * (EDGE * row + correctRow), +2] hold count of cells
+     *      with given correct row in given row
+     */
+    private static final int COUNT_BITS = 3;
+
+    private static final int[] CORRECT_ROWS = createCorrectLines(true);
+    private static final int[] CORRECT_COLUMNS = createCorrectLines(false);
+    private static final WalkingDistanceTable TABLE = new WalkingDistanceTable();
+
+    @Override
+    public int heuristicValue(long cells) {
+        return TABLE.get(rowsKey(cells)) + TABLE.get(columnsKey(cells));
+    }
+
+    /**
+     * Moved cell changes count of only one table, by moving one cell from its old row (column) to new one
+     */
+    @Override
+    public int delta(long cells, int movedTile, int from, int to) {
+        if (PackedPuzzle.row(from) == PackedPuzzle.row(to)) {
+            long key = columnsKey(cells);
+            int correctColumn = CORRECT_COLUMNS[movedTile];
+            long after = key - rowKey(PackedPuzzle.column(from), correctColumn) + rowKey(PackedPuzzle.column(to), correctColumn);
+            return TABLE.get(after) - TABLE.get(key);
+        } else {
+            long key = rowsKey(cells);
+            int correctRow = CORRECT_ROWS[movedTile];
+            long after = key - rowKey(PackedPuzzle.row(from), correctRow) + rowKey(PackedPuzzle.row(to), correctRow);
+            return TABLE.get(after) - TABLE.get(key);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return HEURISTIC_NAME;
+    }
+
+    private static long rowsKey(long cells) {
+        long key = 0;
+        for (int i = 0; i < PackedPuzzle.CELLS; i++) {
+            int value = PackedPuzzle.getCell(cells, i);
+            if (value > 0) {
+                key += rowKey(PackedPuzzle.row(i), CORRECT_ROWS[value]);
+            }
+        }
+        return key;
+    }
+
+    private static long columnsKey(long cells) {
+        long key = 0;
+        for (int i = 0; i < PackedPuzzle.CELLS; i++) {
+            int value = PackedPuzzle.getCell(cells, i);
+            if (value > 0) {
+                key += rowKey(PackedPuzzle.column(i), CORRECT_COLUMNS[value]);
+            }
+        }
+        return key;
+    }
+
+    private static int[] createCorrectLines(boolean rows) {
+        int[] lines = new int[PackedPuzzle.CELLS];
+        for (int value = 1; value < PackedPuzzle.CELLS; value++) {
+            int correct = PackedPuzzle.indexOf(PackedPuzzle.SOLVED, value);
+            lines[value] = rows ? PackedPuzzle.row(correct) : PackedPuzzle.column(correct);
+        }
+        return lines;
+    }
+
+    private static long rowKey(int row, int correctRow) {
+        return 1L << (COUNT_BITS * (Puzzle.EDGE * row + correctRow));
+    }
+
+    private static int count(long key, int row, int correctRow) {
+        return (int) (key >>> (COUNT_BITS * (Puzzle.EDGE * row + correctRow))) & ((1 << COUNT_BITS) - 1);
+    }
+
+    /**
+     * Open addressing hash table of all reachable row tables and their walking distances
+     */
+    private static class WalkingDistanceTable {
+        private static final long FREE = 0L;
+
+        private final long[] keys = new long[1 << 16];
+        private final byte[] distances = new byte[keys.length];
+        private final int mask = keys.length - 1;
+
+        WalkingDistanceTable() {
+            long solved = 0;
+            for (int row = 0; row < Puzzle.EDGE; row++) {
+                int cells = row == Puzzle.EDGE - 1 ? Puzzle.EDGE - 1 : Puzzle.EDGE; // empty cell is in last row
+                solved += cells * rowKey(row, row);
+            }
+            long[] queue = new long[keys.length];
+            int head = 0;
+            int tail = 0;
+            put(solved, 0);
+            queue[tail++] = solved;
+            while (head < tail) {
+                long key = queue[head++];
+                int distance = get(key);
+                int emptyRow = emptyRow(key);
+                for (int row = emptyRow - 1; row <= emptyRow + 1; row += 2) {
+                    if (row < 0 || row >= Puzzle.EDGE) {
+                        continue;
+                    }
+                    for (int correctRow = 0; correctRow < Puzzle.EDGE; correctRow++) {
+                        if (count(key, row, correctRow) > 0) { // cell moves from neighbour row into empty row
+                            long after = key - rowKey(row, correctRow) + rowKey(emptyRow, correctRow);
+                            if (indexOf(after) < 0) {
+                                put(after, distance + 1);
+                                queue[tail++] = after;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        int get(long key) {
+            int slot = indexOf(key);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unreachable walking distance table: " + Long.toHexString(key));
+            }
+            return distances[slot];
+        }
+
+        private int indexOf(long key) {
+            int slot = PackedPuzzle.hash(key) & mask;
+            while (keys[slot] != FREE) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void put(long key, int distance) {
+            int slot = PackedPuzzle.hash(key) & mask;
+            while (keys[slot] != FREE) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            distances[slot] = (byte) distance;
+        }
+
+        /**
+         * @return row with one cell less than others
+         */
+        private static int emptyRow(long key) {
+            for (int row = 0; row < Puzzle.EDGE; row++) {
+                int cells = 0;
+                for (int correctRow = 0; correctRow < Puzzle.EDGE; correctRow++) {
+                    cells += count(key, row, correctRow);
+                }
+                if (cells < Puzzle.EDGE) {
+                    return row;
+                }
+            }
+            throw new IllegalStateException("Table has no empty row: " + Long.toHexString(key));
+        }
+    }
+
+}
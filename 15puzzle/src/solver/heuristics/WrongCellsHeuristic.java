@@ -1,6 +1,6 @@
 package solver.heuristics;
 
-import puzzle.Puzzle;
+import puzzle.PackedPuzzle;
 
 /**
  * 
@@ -16,22 +16,77 @@ public class WrongCellsHeuristic implements Heuristic {
 
     public final static String HEURISTIC_NAME = "Amount of cells in wrong place";
 
+    /**
+     * 1 if cell value is misplaced on index, otherwise 0: [value][index]
+     */
+    private static final int[][] SOLVED_WRONG = createWrong(PackedPuzzle.SOLVED);
+
+    private final long goal;
+    private final int[][] wrong;
+
+    public WrongCellsHeuristic() {
+        this(PackedPuzzle.SOLVED);
+    }
+
+    /**
+     * @param goal - packed puzzle state, to which cells are compared
+     */
+    public WrongCellsHeuristic(long goal) {
+        this.goal = goal;
+        this.wrong = goal == PackedPuzzle.SOLVED ? SOLVED_WRONG : createWrong(goal);
+    }
+
     @Override
-    public int heuristicValue(Puzzle puzzle) {
+    public int heuristicValue(long cells) {
         int wrongAmount = 0;
-        for (int i = 0; i < Puzzle.EDGE; i++) {
-            for (int j = 0; j < Puzzle.EDGE; j++) {
-                if ((puzzle.getCell(i, j) > 0) && (puzzle.getCell(i, j) != Puzzle.SOLVED.getCell(i, j))) {
-                    wrongAmount++;
-                }
-            }
+        for (int i = 0; i < PackedPuzzle.CELLS; i++) {
+            wrongAmount += wrong[PackedPuzzle.getCell(cells, i)][i];
         }
         return wrongAmount;
     }
 
+    /**
+     * Counts misplaced cells of a state with a few bit operations: nibbles, which differ from goal and aren't empty,
+     *      are folded to their lowest bit and counted by {@link Long#bitCount}
+     */
+    @Override
+    public void heuristicValues(long[] states, int[] values) {
+        for (int i = 0; i < states.length; i++) {
+            long cells = states[i];
+            values[i] = Long.bitCount(nonZeroNibbles(cells ^ goal) & nonZeroNibbles(cells));
+        }
+    }
+
+    @Override
+    public int delta(long cells, int movedTile, int from, int to) {
+        return wrong[movedTile][to] - wrong[movedTile][from];
+    }
+
+    @Override
+    public Heuristic towards(long goal) {
+        return goal == this.goal ? this : new WrongCellsHeuristic(goal);
+    }
+
     @Override
     public String getName() {
         return HEURISTIC_NAME;
     }
 
+    /**
+     * @return lowest bit of every nibble set if the nibble isn't 0
+     */
+    private static long nonZeroNibbles(long cells) {
+        return (cells | cells >>> 1 | cells >>> 2 | cells >>> 3) & 0x1111111111111111L;
+    }
+
+    private static int[][] createWrong(long goal) {
+        int[][] wrong = new int[PackedPuzzle.CELLS][PackedPuzzle.CELLS];
+        for (int value = 1; value < PackedPuzzle.CELLS; value++) { // empty cell is not counted
+            for (int i = 0; i < PackedPuzzle.CELLS; i++) {
+                wrong[value][i] = value != PackedPuzzle.getCell(goal, i) ? 1 : 0;
+            }
+        }
+        return wrong;
+    }
+
 }